@@ -0,0 +1,46 @@
+package looksy;
+
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/*
+ * SimpleLinkedList with its nodes in a shared LongNodeArena. The list
+ * itself is an int head handle and a size; add(), size, iterator() and
+ * forEach() behave the same, newest value first.
+ */
+class ArenaLinkedList {
+  final LongNodeArena nodes;
+  int head = LongNodeArena.NONE;
+  int size = 0;
+
+  ArenaLinkedList(LongNodeArena nodes) {
+    this.nodes = nodes;
+  }
+
+  void add(long value) {
+    head = nodes.add(value, head);
+    size++;
+  }
+
+  PrimitiveIterator.OfLong iterator() {
+    return new PrimitiveIterator.OfLong() {
+      int next = head;
+
+      public boolean hasNext() {
+        return next != LongNodeArena.NONE;
+      }
+
+      public long nextLong() {
+        long value = nodes.value(next);
+        next = nodes.next(next);
+        return value;
+      }
+    };
+  }
+
+  void forEach(LongConsumer consumer) {
+    for (int next = head; next != LongNodeArena.NONE; next = nodes.next(next)) {
+      consumer.accept(nodes.value(next));
+    }
+  }
+}
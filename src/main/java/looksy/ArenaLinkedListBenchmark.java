@@ -0,0 +1,119 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * SimpleLinkedList's one-Node-per-value lists against ArenaLinkedList,
+ * whose nodes are two primitive arrays shared by every list, on the
+ * lookupLinkedList (5000 x 500) and lookupLinkedListShort (500000 x 2)
+ * builds. "idle" traverses on a quiet heap; "underLoad" traverses while a
+ * second thread churns through short- and medium-lived garbage, enough
+ * to push objects into the old generation so that old collections have to
+ * mark the lists too. The churn is the same Churn ring GcImpactTest runs,
+ * retaining RETAINED_MB.
+ *
+ * Run it through BenchmarkRunner to get gc.count and gc.time next to each
+ * score: the GC time is where the 2.5M Nodes show up.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ArenaLinkedListBenchmark {
+  static final int RETAINED_MB = 64;
+
+  @State(Scope.Benchmark)
+  public static class ListsState {
+    @Param({"node", "arena"})
+    String lists;
+
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    SimpleLinkedList[] nodeLists;
+    ArenaLinkedList[] arenaLists;
+    int listCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(LookupBenchmark.SEED);
+      listCount = scenario.equals("short") ? 500000 : 5000;
+      int listLength = scenario.equals("short") ? 2 : 500;
+      if (lists.equals("node")) {
+        nodeLists = new SimpleLinkedList[listCount];
+        for (int listIndex = 0; listIndex < listCount; listIndex++) {
+          nodeLists[listIndex] = new SimpleLinkedList();
+        }
+      } else {
+        LongNodeArena nodes = new LongNodeArena();
+        arenaLists = new ArenaLinkedList[listCount];
+        for (int listIndex = 0; listIndex < listCount; listIndex++) {
+          arenaLists[listIndex] = new ArenaLinkedList(nodes);
+        }
+      }
+      // round-robin, as in LookupTest.lookupLinkedList
+      for (int i = 0; i < listLength; i++) {
+        for (int listIndex = 0; listIndex < listCount; listIndex++) {
+          long value = Math.abs(r.nextLong()) + 1;
+          if (nodeLists != null) {
+            nodeLists[listIndex].add(value);
+          } else {
+            arenaLists[listIndex].add(value);
+          }
+        }
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ReaderState extends LookupBenchmark.ProbeState {
+    @Setup(Level.Trial)
+    public void setUp(ListsState s) {
+      probes = LookupBenchmark.probes(new Random(LookupBenchmark.SEED + 1), s.listCount);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ChurnState {
+    final Churn churn = new Churn((long) RETAINED_MB << 20);
+  }
+
+  static void walk(ListsState s, ReaderState reader, Blackhole bh) {
+    int listIndex = reader.nextProbe();
+    if (s.nodeLists != null) {
+      for (Node node = s.nodeLists[listIndex].head; node != null; node = node.next) {
+        bh.consume(node.value);
+      }
+    } else {
+      ArenaLinkedList list = s.arenaLists[listIndex];
+      LongNodeArena nodes = list.nodes;
+      for (int node = list.head; node != LongNodeArena.NONE; node = nodes.next(node)) {
+        bh.consume(nodes.value(node));
+      }
+    }
+  }
+
+  @Benchmark
+  public void idle(ListsState s, ReaderState reader, Blackhole bh) {
+    walk(s, reader, bh);
+  }
+
+  @Benchmark
+  @Group("underLoad")
+  @GroupThreads(1)
+  public void traverse(ListsState s, ReaderState reader, Blackhole bh) {
+    walk(s, reader, bh);
+  }
+
+  @Benchmark
+  @Group("underLoad")
+  @GroupThreads(1)
+  public Object churn(ChurnState c) {
+    return c.churn.allocate();
+  }
+}
@@ -0,0 +1,80 @@
+package looksy;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChains over an array of ArenaLinkedLists that share one
+ * LongNodeArena, one list per key.
+ */
+class ArenaLinkedListChains implements LongChains {
+  final ArenaLinkedList[] listArray;
+  private final long size;
+
+  ArenaLinkedListChains(ArenaLinkedList[] listArray) {
+    this.listArray = listArray;
+    long size = 0;
+    for (ArenaLinkedList list : listArray) {
+      size += list.size;
+    }
+    this.size = size;
+  }
+
+  // round-robin, as in LookupTest.lookupLinkedList
+  static ArenaLinkedListChains interleaved(Random r, int listCount, int listLength) {
+    LongNodeArena nodes = new LongNodeArena();
+    ArenaLinkedList[] listArray = new ArenaLinkedList[listCount];
+    for (int listIndex = 0; listIndex < listCount; listIndex++) {
+      listArray[listIndex] = new ArenaLinkedList(nodes);
+    }
+    for (int i = 0; i < listLength; i++) {
+      for (int listIndex = 0; listIndex < listCount; listIndex++) {
+        listArray[listIndex].add(Math.abs(r.nextLong()) + 1);
+      }
+    }
+    return new ArenaLinkedListChains(listArray);
+  }
+
+  @Override
+  public int keyCount() {
+    return listArray.length;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    listArray[key].forEach(consumer);
+  }
+
+  @Override
+  public LongChainCursor cursor() {
+    return new LongChainCursor() {
+      LongNodeArena nodes;
+      int next = LongNodeArena.NONE;
+
+      @Override
+      public LongChainCursor reset(int key) {
+        ArenaLinkedList list = listArray[key];
+        nodes = list.nodes;
+        next = list.head;
+        return this;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != LongNodeArena.NONE;
+      }
+
+      @Override
+      public long nextLong() {
+        long value = nodes.value(next);
+        next = nodes.next(next);
+        return value;
+      }
+    };
+  }
+}
@@ -0,0 +1,83 @@
+package looksy;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChains over the raw headArray + bigArray layout that LookupTest
+ * builds by hand: heads hold offsets into bigArray, each entry is
+ * (value, next offset), and -1 ends a chain.
+ */
+class ArrayLinkedListChains implements LongChains {
+  final long[] bigArray;
+  final int[] headArray;
+  private final long size;
+
+  ArrayLinkedListChains(long[] bigArray, int[] headArray, long size) {
+    this.bigArray = bigArray;
+    this.headArray = headArray;
+    this.size = size;
+  }
+
+  // round-robin, as in LookupTest.lookupArrayLinkedList
+  static ArrayLinkedListChains interleaved(Random r, int listCount, int listLength) {
+    long[] bigArray = new long[listCount * listLength * 2];
+    BlockOfLongs bol = new BlockOfLongs(bigArray);
+    int[] headArray = new int[listCount];
+    Arrays.fill(headArray, -1);
+    for (int i = 0; i < listLength; i++) {
+      for (int headIndex = 0; headIndex < headArray.length; headIndex++) {
+        int index = bol.allocate(2);
+        bigArray[index] = Math.abs(r.nextLong()) + 1;
+        bigArray[index + 1] = headArray[headIndex];
+        headArray[headIndex] = index;
+      }
+    }
+    return new ArrayLinkedListChains(bigArray, headArray, (long) listCount * listLength);
+  }
+
+  @Override
+  public int keyCount() {
+    return headArray.length;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    int next = headArray[key];
+    while (next != -1) {
+      consumer.accept(bigArray[next]);
+      next = (int) bigArray[next + 1];
+    }
+  }
+
+  @Override
+  public LongChainCursor cursor() {
+    return new LongChainCursor() {
+      int next = -1;
+
+      @Override
+      public LongChainCursor reset(int key) {
+        next = headArray[key];
+        return this;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != -1;
+      }
+
+      @Override
+      public long nextLong() {
+        long value = bigArray[next];
+        next = (int) bigArray[next + 1];
+        return value;
+      }
+    };
+  }
+}
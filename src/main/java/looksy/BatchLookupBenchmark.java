@@ -0,0 +1,98 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Walking chains one at a time against LongChainIndex.BatchCursor, which
+ * advances a batch of chains in lockstep. Every invocation looks up the
+ * same 64 keys either way, in batches of batchSize, so scores are per key
+ * and comparable across batch sizes. The serial baseline takes no
+ * batchSize, so JMH runs it once per scenario.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchLookupBenchmark {
+  static final int KEYS_PER_INVOCATION = 64;
+
+  @State(Scope.Thread)
+  public static class IndexState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    LongChainIndex index;
+    LongChainIndex.Cursor cursor;
+    int[] keys;
+    int from;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+      Random r = new Random(LookupBenchmark.SEED);
+      index = new LongChainIndex();
+      switch (scenario) {
+        case "interleaved":
+          LongChainIndexBenchmark.addInterleaved(index, r, 5000, 500);
+          break;
+        case "short":
+          LongChainIndexBenchmark.addInterleaved(index, r, 500000, 2);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown scenario " + scenario);
+      }
+      keys = LookupBenchmark.probes(r, index.keyCount());
+      cursor = index.cursor();
+      setUpCursors(bh);
+    }
+
+    void setUpCursors(Blackhole bh) {
+    }
+
+    int nextFrom() {
+      int from = this.from;
+      this.from = (from + KEYS_PER_INVOCATION) & (keys.length - 1);
+      return from;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BatchState extends IndexState {
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    int batchSize;
+
+    LongChainIndex.BatchCursor batchCursor;
+    IntLongConsumer consumer;
+
+    @Override
+    void setUpCursors(Blackhole bh) {
+      batchCursor = index.batchCursor(batchSize);
+      consumer = (keyIndex, value) -> bh.consume(value);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(KEYS_PER_INVOCATION)
+  public void serial(IndexState s, Blackhole bh) {
+    int from = s.nextFrom();
+    for (int i = from; i < from + KEYS_PER_INVOCATION; i++) {
+      LongChainIndex.Cursor cursor = s.cursor.reset(s.keys[i]);
+      while (cursor.hasNext()) {
+        bh.consume(cursor.nextLong());
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(KEYS_PER_INVOCATION)
+  public void batched(BatchState s) {
+    int from = s.nextFrom();
+    for (int i = from; i < from + KEYS_PER_INVOCATION; i += s.batchSize) {
+      s.batchCursor.forEach(s.keys, i, s.batchSize, s.consumer);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package looksy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs benchmarks the way org.openjdk.jmh.Main does, taking the same
+ * command line, but always with the GC profiler attached so every result
+ * comes with gc.alloc.rate.norm (bytes allocated per op). A primitive
+ * traversal should report 0 B/op there; the boxed ones don't.
+ *
+ *   java -cp target/benchmarks.jar looksy.BenchmarkRunner 'lookupArrayLinkedList.*'
+ *
+ * A leading -counters also attaches JMH's perfnorm profiler, which runs
+ * perf stat on the forked JVM during measurement and divides each
+ * hardware counter by the op count: with LookupBenchmark that is cache
+ * and dTLB misses per lookup (per whole walk for the Sprawling and
+ * SingleSequential ones), plus insns/clk. -counters=<event,...> picks
+ * other perf events. Needs Linux perf installed and
+ * kernel.perf_event_paranoid at 2 or lower.
+ *
+ *   java -cp target/benchmarks.jar looksy.BenchmarkRunner -counters 'lookup(Sprawling|Sequential).*'
+ */
+public class BenchmarkRunner {
+  static final String COUNTERS =
+      "cycles,instructions,L1-dcache-load-misses,LLC-load-misses,dTLB-loads,dTLB-load-misses";
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    String counters = null;
+    List<String> jmhArgs = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.equals("-counters")) {
+        counters = COUNTERS;
+      } else if (arg.startsWith("-counters=")) {
+        counters = arg.substring("-counters=".length());
+      } else {
+        jmhArgs.add(arg);
+      }
+    }
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .parent(new CommandLineOptions(jmhArgs.toArray(new String[0])))
+        .addProfiler(GCProfiler.class);
+    if (counters != null) {
+      options.addProfiler(LinuxPerfNormProfiler.class, "events=" + counters);
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,23 @@
+package looksy;
+
+class BlockOfLongs {
+  long[] array;
+
+  BlockOfLongs(long[] array) {
+    this.array = array;
+    for (int i = 0; i < this.array.length; i++) {
+      this.array[i] = -1L;
+    }
+  }
+
+  int cursor = 0;
+
+  int allocate(int size) {
+    int index = cursor;
+    if (index >= array.length) {
+      throw new RuntimeException("Ran out of space! " + index);
+    }
+    cursor += size;
+    return index;
+  }
+}
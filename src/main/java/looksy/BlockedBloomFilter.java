@@ -0,0 +1,80 @@
+package looksy;
+
+/*
+ * A Bloom filter split into 64-byte blocks, one cache line each. A key
+ * hashes to a single block and sets its k bits inside that block's 512,
+ * so add() and mightContain() touch one cache line, where a plain Bloom
+ * filter scatters its k probes across the whole bit array. The price is a
+ * slightly higher false-positive rate for the same bits per key.
+ *
+ * The block comes from a multiplicative hash of the key and the bit
+ * positions from 9-bit slices of a second, murmur3-mixed hash, which is
+ * enough for up to 7 bits per key.
+ *
+ * The filter doesn't grow; it is sized for expectedKeys up front, and
+ * adding more keys than that just raises the false-positive rate.
+ */
+public class BlockedBloomFilter {
+  static final int BLOCK_LONGS = 8;
+  static final int MAX_HASHES = 7;
+
+  private final long[] bits;
+  private final long blocks;
+  private final int hashes;
+
+  public BlockedBloomFilter(long expectedKeys, int bitsPerKey) {
+    if (bitsPerKey < 1) {
+      throw new IllegalArgumentException("bitsPerKey must be positive: " + bitsPerKey);
+    }
+    long wanted = Math.max(1, (Math.max(expectedKeys, 1) * bitsPerKey + 511) / 512);
+    if (wanted > Integer.MAX_VALUE / BLOCK_LONGS / 2) {
+      throw new IllegalArgumentException("Too many keys: " + expectedKeys);
+    }
+    blocks = wanted;
+    bits = new long[(int) wanted * BLOCK_LONGS];
+    // k = ln 2 * bits per key is optimal for a plain Bloom filter
+    hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+  }
+
+  static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  // maps the top 32 bits of a Fibonacci hash onto 0..blocks without a division
+  private int block(long key) {
+    return (int) ((((key * LongLongHashMap.PHI) >>> 32) * blocks) >>> 32) * BLOCK_LONGS;
+  }
+
+  public void add(long key) {
+    int block = block(key);
+    long hash = mix(key);
+    for (int i = 0; i < hashes; i++, hash >>>= 9) {
+      bits[block + ((int) hash >>> 6 & 7)] |= 1L << hash;
+    }
+  }
+
+  /** False means the key was never added; true means it probably was. */
+  public boolean mightContain(long key) {
+    int block = block(key);
+    long hash = mix(key);
+    for (int i = 0; i < hashes; i++, hash >>>= 9) {
+      if ((bits[block + ((int) hash >>> 6 & 7)] & (1L << hash)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int hashes() {
+    return hashes;
+  }
+
+  public long bytes() {
+    return (long) bits.length * Long.BYTES;
+  }
+}
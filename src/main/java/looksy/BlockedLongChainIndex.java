@@ -0,0 +1,164 @@
+package looksy;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+ * An unrolled variant of LongChainIndex: each link in a chain is a block of
+ * blockSize longs holding a header and up to blockSize - 1 values, so a
+ * walk takes one dependent load per block instead of one per value. With
+ * the default 8-long block that is 7 values + header in 64 bytes.
+ *
+ * Blocks are all the same power-of-two size and are the only thing
+ * allocated from the arena, so every block starts at a multiple of
+ * blockSize. A link is the block's address plus blockSize, leaving 0 for
+ * the end of a chain, and the low bits of a link are always zero. The
+ * header packs the link to the next (older) block with the number of
+ * values in this block in those low bits.
+ *
+ * add() fills the key's newest block before starting a new one. Values
+ * come back newest first, like LongChainIndex.
+ */
+public class BlockedLongChainIndex implements MutableLongChains {
+  static final int DEFAULT_BLOCK_SIZE = 8;
+
+  private final LongArena arena;
+  private final int blockSize;
+  private final long countMask;
+  private long[] heads;
+  private long size = 0;
+  private int keyCount = 0;
+
+  public BlockedLongChainIndex() {
+    this(16, new HeapLongArena(), DEFAULT_BLOCK_SIZE);
+  }
+
+  public BlockedLongChainIndex(int keyCapacity, LongArena arena) {
+    this(keyCapacity, arena, DEFAULT_BLOCK_SIZE);
+  }
+
+  public BlockedLongChainIndex(int keyCapacity, LongArena arena, int blockSize) {
+    if (blockSize < 2 || Integer.bitCount(blockSize) != 1 || blockSize > arena.pageSize) {
+      throw new IllegalArgumentException("Block size must be a power of two between 2 and "
+          + arena.pageSize + ": " + blockSize);
+    }
+    if (arena.used() != 0) {
+      throw new IllegalArgumentException("Blocks need an empty arena to stay aligned");
+    }
+    this.arena = arena;
+    this.blockSize = blockSize;
+    this.countMask = blockSize - 1;
+    this.heads = new long[Math.max(keyCapacity, 1)];
+  }
+
+  @Override
+  public void add(int key, long value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative key " + key);
+    }
+    if (key >= heads.length) {
+      heads = Arrays.copyOf(heads, Math.max(key + 1, heads.length * 2));
+    }
+    if (key >= keyCount) {
+      keyCount = key + 1;
+    }
+    long link = heads[key];
+    if (link != LongChainIndex.NONE) {
+      long address = link - blockSize;
+      long header = arena.get(address);
+      int count = (int) (header & countMask);
+      if (count < blockSize - 1) {
+        arena.set(address + 1 + count, value);
+        arena.set(address, header + 1);
+        size++;
+        return;
+      }
+    }
+    long address = arena.allocate(blockSize);
+    arena.set(address, link | 1);
+    arena.set(address + 1, value);
+    heads[key] = address + blockSize;
+    size++;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public int keyCount() {
+    return keyCount;
+  }
+
+  public int blockSize() {
+    return blockSize;
+  }
+
+  private long head(int key) {
+    return key >= 0 && key < heads.length ? heads[key] : LongChainIndex.NONE;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    long link = head(key);
+    while (link != LongChainIndex.NONE) {
+      long address = link - blockSize;
+      long header = arena.get(address);
+      for (long i = address + (header & countMask); i > address; i--) {
+        consumer.accept(arena.get(i));
+      }
+      link = header & ~countMask;
+    }
+  }
+
+  @Override
+  public void free() {
+    arena.free();
+    heads = null;
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  public class Cursor implements LongChainCursor {
+    private long address;
+    private int remaining;
+    private long nextLink;
+
+    @Override
+    public Cursor reset(int key) {
+      enter(head(key));
+      return this;
+    }
+
+    // every block holds at least one value, so a cursor always steps into
+    // the next block as soon as it finishes the current one
+    private void enter(long link) {
+      if (link == LongChainIndex.NONE) {
+        remaining = 0;
+        return;
+      }
+      address = link - blockSize;
+      long header = arena.get(address);
+      remaining = (int) (header & countMask);
+      nextLink = header & ~countMask;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public long nextLong() {
+      long value = arena.get(address + remaining);
+      if (--remaining == 0) {
+        enter(nextLink);
+      }
+      return value;
+    }
+  }
+}
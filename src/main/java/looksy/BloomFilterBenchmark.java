@@ -0,0 +1,102 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Probes a HashedLongChainIndex keyed by random longs, with and without a
+ * BlockedBloomFilter in front of the table (filterBitsPerKey 0 is none),
+ * at hit ratios from 0 to 100%. A miss the filter turns away costs one
+ * cache line of filter; one it lets through, a false positive, costs the
+ * filter and the table probe too.
+ *
+ * Setup prints the filter's false-positive rate over the missing probe
+ * keys along with its size.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BloomFilterBenchmark {
+
+  @State(Scope.Thread)
+  public static class IndexState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    @Param({"0", "10", "50", "100"})
+    int hitPercent;
+
+    @Param({"0", "8", "12"})
+    int filterBitsPerKey;
+
+    HashedLongChainIndex index;
+    HashedLongChainIndex.Cursor cursor;
+    long[] probes;
+    int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(LookupBenchmark.SEED);
+      int keyCount = scenario.equals("short") ? 500000 : 5000;
+      int chainLength = scenario.equals("short") ? 2 : 500;
+
+      long[] keys = new long[keyCount];
+      index = new HashedLongChainIndex(keyCount, new HeapLongArena(),
+          LongLongHashMap.DEFAULT_MAX_LOAD, HashedLongChainIndex.DEFAULT_MAX_SPREAD,
+          filterBitsPerKey);
+      for (int i = 0; i < chainLength; i++) {
+        for (int key = 0; key < keyCount; key++) {
+          if (i == 0) {
+            do {
+              keys[key] = r.nextLong();
+            } while (index.containsKey(keys[key]));
+          }
+          index.add(keys[key], Math.abs(r.nextLong()) + 1);
+        }
+      }
+      if (index.isDirect()) {
+        throw new IllegalStateException("Random keys should be hashed");
+      }
+
+      probes = new long[LookupBenchmark.PROBE_COUNT];
+      int misses = 0;
+      int falsePositives = 0;
+      for (int i = 0; i < probes.length; i++) {
+        if (r.nextInt(100) < hitPercent) {
+          probes[i] = keys[(int) (Math.abs(r.nextLong()) % keyCount)];
+        } else {
+          do {
+            probes[i] = r.nextLong();
+          } while (index.containsKey(probes[i]));
+          misses++;
+          if (index.filter() != null && index.filter().mightContain(probes[i])) {
+            falsePositives++;
+          }
+        }
+      }
+      if (index.filter() != null) {
+        System.out.printf("%nfilter: %d bytes, %d hashes, %.2f%% false positives over %d misses%n",
+            index.filter().bytes(), index.filter().hashes(),
+            misses == 0 ? 0.0 : 100.0 * falsePositives / misses, misses);
+      }
+      cursor = index.cursor();
+    }
+
+    long nextProbe() {
+      return probes[probe++ & (LookupBenchmark.PROBE_COUNT - 1)];
+    }
+  }
+
+  @Benchmark
+  public void lookup(IndexState s, Blackhole bh) {
+    HashedLongChainIndex.Cursor cursor = s.cursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package looksy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/*
+ * Rewrites every chain of a LongChainIndex so its entries sit next to each
+ * other in a fresh arena; the online version of the copy that
+ * LookupTest.lookupCompactedArrayLinkedList does up front. Each step()
+ * copies at most chainsPerStep chains, and the index keeps answering
+ * lookups from the old chains until the last step swaps the new ones in.
+ * Chain order is preserved.
+ *
+ * Steps may run on another thread while readers use the index, but not
+ * while something adds to it. If the index was added to between steps,
+ * the partial copy is dropped and compaction starts over.
+ *
+ * The old arena is not freed, since a reader may still be walking it.
+ * compact() and retiredArena() hand it back so the caller can free it
+ * once no lookup can still be in flight.
+ */
+public class ChainCompactor {
+  static final double DEFAULT_THRESHOLD = 0.5;
+
+  private final LongChainIndex index;
+  private final int chainsPerStep;
+
+  private LongChainIndex.Chains source;
+  private LongArena target;
+  private long[] heads;
+  private int nextKey;
+  private long scatteredLinks;
+  private int expectedModCount;
+  private LongArena retired;
+
+  public ChainCompactor(LongChainIndex index, int chainsPerStep) {
+    if (chainsPerStep < 1) {
+      throw new IllegalArgumentException("chainsPerStep must be positive: " + chainsPerStep);
+    }
+    this.index = index;
+    this.chainsPerStep = chainsPerStep;
+  }
+
+  /*
+   * Whether the index's fragmentation() is above the given threshold. A
+   * round-robin build is close to 1 and a compacted index is 0, so
+   * DEFAULT_THRESHOLD tells them apart with room on both sides.
+   */
+  public static boolean shouldCompact(LongChainIndex index, double threshold) {
+    return index.fragmentation() > threshold;
+  }
+
+  private void start() {
+    if (target != null) {
+      target.free();
+    }
+    source = index.chains();
+    target = source.arena.newArena();
+    heads = new long[source.heads.length];
+    nextKey = 0;
+    scatteredLinks = 0;
+    expectedModCount = index.modCount;
+  }
+
+  /** Copies the next few chains. Returns true once the compacted chains are installed. */
+  public boolean step() {
+    if (retired != null) {
+      return true;
+    }
+    if (target == null || index.modCount != expectedModCount) {
+      start();
+    }
+    int keyCount = index.keyCount();
+    int endKey = (int) Math.min((long) nextKey + chainsPerStep, keyCount);
+    for (; nextKey < endKey; nextKey++) {
+      heads[nextKey] = copyChain(source.head(nextKey));
+    }
+    if (nextKey < keyCount) {
+      return false;
+    }
+    index.install(new LongChainIndex.Chains(heads, target), scatteredLinks);
+    retired = source.arena;
+    source = null;
+    target = null;
+    heads = null;
+    return true;
+  }
+
+  private long copyChain(long link) {
+    LongArena from = source.arena;
+    long head = LongChainIndex.NONE;
+    long previous = -1;
+    while (link != LongChainIndex.NONE) {
+      long address = target.allocate(2);
+      target.set(address, from.get(link - 1));
+      // the link of a fresh entry is already 0, the end of the chain
+      if (previous == -1) {
+        head = address + 1;
+      } else {
+        target.set(previous + 1, address + 1);
+        if (LongChainIndex.isScattered(previous, address + 1)) {
+          scatteredLinks++;
+        }
+      }
+      previous = address;
+      link = from.get(link);
+    }
+    return head;
+  }
+
+  /** Runs steps until done and returns the retired arena. */
+  public LongArena compact() {
+    while (!step()) {
+    }
+    return retired;
+  }
+
+  /*
+   * compact(), but only if shouldCompact(index, threshold). Returns the
+   * retired arena, or null if the index was left as it was.
+   */
+  public LongArena compactIfFragmented(double threshold) {
+    return retired != null || shouldCompact(index, threshold) ? compact() : null;
+  }
+
+  public CompletableFuture<LongArena> compactInBackground(Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      while (!step()) {
+        Thread.yield();
+      }
+      return retired;
+    }, executor);
+  }
+
+  /*
+   * compactInBackground(), but only if shouldCompact(index, threshold) on
+   * the executor; the future completes with null if the index was left
+   * alone.
+   */
+  public CompletableFuture<LongArena> compactInBackground(Executor executor, double threshold) {
+    return CompletableFuture.supplyAsync(() -> {
+      if (retired == null && !shouldCompact(index, threshold)) {
+        return null;
+      }
+      while (!step()) {
+        Thread.yield();
+      }
+      return retired;
+    }, executor);
+  }
+
+  /** The arena the index used before compaction, or null if not finished. */
+  public LongArena retiredArena() {
+    return retired;
+  }
+}
@@ -0,0 +1,149 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Compaction cost, timed on its own, next to lookup cost on the same index
+ * before compaction, after it, and while a background compactor is running.
+ * Compaction pays for itself after roughly
+ *
+ *   compact time / (fragmented lookup time - compacted lookup time)
+ *
+ * lookups.
+ *
+ * parallelCompact runs ParallelChainCompactor on a pool of 1..8 threads;
+ * against compact with chainsPerStep 5000 it shows the speedup per core.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ChainCompactorBenchmark {
+
+  static LongChainIndex fragmented() {
+    LongChainIndex index = new LongChainIndex();
+    LongChainIndexBenchmark.addInterleaved(index, new Random(LookupBenchmark.SEED), 5000, 500);
+    return index;
+  }
+
+  @State(Scope.Thread)
+  public static class CompactState {
+    @Param({"64", "5000"})
+    int chainsPerStep;
+
+    LongChainIndex index;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      index = fragmented();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public LongArena compact(CompactState s) {
+    return new ChainCompactor(s.index, s.chainsPerStep).compact();
+  }
+
+  @State(Scope.Thread)
+  public static class ParallelCompactState {
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    ForkJoinPool pool;
+    LongChainIndex index;
+
+    @Setup(Level.Trial)
+    public void setUpPool() {
+      pool = new ForkJoinPool(parallelism);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      index = fragmented();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      pool.shutdown();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public LongArena parallelCompact(ParallelCompactState s) {
+    return ParallelChainCompactor.compact(s.index, s.pool);
+  }
+
+  @State(Scope.Benchmark)
+  public static class IndexState {
+    @Param({"fragmented", "compacted", "compacting"})
+    String layout;
+
+    LongChainIndex index;
+    Thread compactor;
+    final AtomicBoolean running = new AtomicBoolean();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      index = fragmented();
+      if (layout.equals("compacted")) {
+        new ChainCompactor(index, Integer.MAX_VALUE)
+            .compactIfFragmented(ChainCompactor.DEFAULT_THRESHOLD);
+      } else if (layout.equals("compacting")) {
+        // recompact over and over; after the first pass readers see
+        // contiguous chains while the copy competes for memory bandwidth
+        running.set(true);
+        compactor = new Thread(() -> {
+          while (running.get()) {
+            ChainCompactor c = new ChainCompactor(index, 64);
+            while (running.get() && !c.step()) {
+            }
+          }
+        });
+        compactor.setDaemon(true);
+        compactor.start();
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+      running.set(false);
+      if (compactor != null) {
+        compactor.join();
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ReaderState extends LookupBenchmark.ProbeState {
+    LongChainIndex.Cursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp(IndexState s) {
+      cursor = s.index.cursor();
+      probes = LookupBenchmark.probes(new Random(LookupBenchmark.SEED + 1), s.index.keyCount());
+    }
+  }
+
+  @Benchmark
+  public void lookup(ReaderState s, Blackhole bh) {
+    LongChainIndex.Cursor cursor = s.cursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package looksy;
+
+/*
+ * The ways a MutableLongChains can lay its chains out in an arena.
+ */
+public enum ChainLayout {
+  // one (value, next) pair per value
+  LINKED {
+    @Override
+    public MutableLongChains newIndex(int keyCapacity, LongArena arena) {
+      return new LongChainIndex(keyCapacity, arena);
+    }
+  },
+  // blocks of 7 values + header
+  BLOCKED {
+    @Override
+    public MutableLongChains newIndex(int keyCapacity, LongArena arena) {
+      return new BlockedLongChainIndex(keyCapacity, arena);
+    }
+  };
+
+  public abstract MutableLongChains newIndex(int keyCapacity, LongArena arena);
+}
@@ -0,0 +1,31 @@
+package looksy;
+
+/*
+ * The background allocation load of GcImpactTest and
+ * ArenaLinkedListBenchmark. Every allocate() makes a BYTES-long array and
+ * keeps the newest retainedBytes' worth of them alive in a ring, so the
+ * garbage lives long enough to reach the old generation and old
+ * collections have to mark whatever else is on the heap.
+ *
+ * Not thread-safe; give each churning thread its own.
+ */
+class Churn {
+  static final int BYTES = 1024;
+
+  private final Object[] retained;
+  private int next = 0;
+
+  Churn(long retainedBytes) {
+    long count = Math.min(retainedBytes / BYTES, Integer.MAX_VALUE - 8);
+    retained = new Object[(int) Math.max(count, 1)];
+  }
+
+  Object allocate() {
+    byte[] garbage = new byte[BYTES];
+    retained[next] = garbage;
+    if (++next == retained.length) {
+      next = 0;
+    }
+    return garbage;
+  }
+}
@@ -0,0 +1,130 @@
+package looksy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * A LongArena-style paged allocator that any number of threads can
+ * allocate from at once. Space is claimed by bumping an atomic cursor, and
+ * pages are created on demand by whichever thread first needs one, so
+ * nothing is ever copied or locked. Like LongArena, an allocation never
+ * spans two pages and new pages read as zero.
+ *
+ * The arena does not publish what is written into it. Callers hand
+ * entries to readers through something volatile, such as a CAS on a head.
+ */
+public class ConcurrentLongArena {
+  static final int MAX_PAGES = 1 << 16;
+
+  final int pageShift;
+  final int pageSize;
+  final int pageMask;
+
+  private final AtomicReferenceArray<long[]> pages = new AtomicReferenceArray<>(MAX_PAGES);
+  private final AtomicLong cursor = new AtomicLong();
+
+  public ConcurrentLongArena() {
+    this(LongArena.DEFAULT_PAGE_SHIFT);
+  }
+
+  public ConcurrentLongArena(int pageShift) {
+    if (pageShift < 1 || pageShift > 30) {
+      throw new IllegalArgumentException("Page shift out of range: " + pageShift);
+    }
+    this.pageShift = pageShift;
+    this.pageSize = 1 << pageShift;
+    this.pageMask = pageSize - 1;
+  }
+
+  public long allocate(int size) {
+    if (size < 1 || size > pageSize) {
+      throw new IllegalArgumentException("Can't allocate " + size + " longs from "
+          + pageSize + "-long pages");
+    }
+    while (true) {
+      long current = cursor.get();
+      long address = current;
+      if ((address & pageMask) + size > pageSize) {
+        address = (address | pageMask) + 1;
+      }
+      if (cursor.compareAndSet(current, address + size)) {
+        page((int) (address >>> pageShift));
+        return address;
+      }
+    }
+  }
+
+  private long[] page(int index) {
+    if (index >= MAX_PAGES) {
+      throw new IllegalStateException("Arena is full at " + MAX_PAGES + " pages");
+    }
+    long[] page = pages.get(index);
+    if (page == null) {
+      page = new long[pageSize];
+      if (!pages.compareAndSet(index, null, page)) {
+        page = pages.get(index);
+      }
+    }
+    return page;
+  }
+
+  public long get(long address) {
+    return pages.get((int) (address >>> pageShift))[(int) address & pageMask];
+  }
+
+  public void set(long address, long value) {
+    pages.get((int) (address >>> pageShift))[(int) address & pageMask] = value;
+  }
+
+  /** Address of the next allocation; everything below it has been handed out. */
+  public long used() {
+    return cursor.get();
+  }
+
+  /** A bump allocator for one thread that takes slabSize longs at a time from this arena. */
+  public Allocator newAllocator(int slabSize) {
+    return new Allocator(slabSize);
+  }
+
+  /*
+   * A thread-local allocation buffer: claims a slab from the shared cursor
+   * with one CAS and then hands out pieces of it with no synchronization at
+   * all. Not thread-safe; give each thread its own. Whatever is left of the
+   * last slab when the thread stops is wasted.
+   */
+  public class Allocator {
+    private final int slabSize;
+    private long next = 0;
+    private long end = 0;
+
+    Allocator(int slabSize) {
+      if (slabSize < 1 || slabSize > pageSize) {
+        throw new IllegalArgumentException("Slab size must be between 1 and " + pageSize
+            + ": " + slabSize);
+      }
+      this.slabSize = slabSize;
+    }
+
+    public long allocate(int size) {
+      if (size > slabSize) {
+        throw new IllegalArgumentException("Can't allocate " + size + " longs from "
+            + slabSize + "-long slabs");
+      }
+      if (next + size > end) {
+        // a slab never spans pages, so neither does anything carved from it
+        next = ConcurrentLongArena.this.allocate(slabSize);
+        end = next + slabSize;
+      }
+      long address = next;
+      next += size;
+      return address;
+    }
+  }
+
+  /** Drops the pages. The arena can't be used afterwards. */
+  public void free() {
+    for (int i = 0; i < MAX_PAGES && pages.get(i) != null; i++) {
+      pages.set(i, null);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package looksy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/*
+ * A LongChainIndex that many threads can add to while others read. A
+ * writer claims an entry from a ConcurrentLongArena, fills in the value and
+ * the current head as its next link, and then publishes it with a CAS on
+ * the head, retrying with the new head if another writer got there first.
+ * Entries are never changed once published, so a reader that sees a head
+ * sees a complete chain behind it: the value written before the CAS, and
+ * older entries that were published the same way.
+ *
+ * The key range is fixed when the index is created. Links are arena
+ * addresses plus one, with 0 for the end of a chain, as in LongChainIndex.
+ */
+public class ConcurrentLongChainIndex implements MutableLongChains {
+  private final ConcurrentLongArena arena;
+  private final AtomicLongArray heads;
+  private final LongAdder size = new LongAdder();
+
+  public ConcurrentLongChainIndex(int keyCount) {
+    this(keyCount, new ConcurrentLongArena());
+  }
+
+  public ConcurrentLongChainIndex(int keyCount, ConcurrentLongArena arena) {
+    this.heads = new AtomicLongArray(keyCount);
+    this.arena = arena;
+  }
+
+  @Override
+  public void add(int key, long value) {
+    if (key < 0 || key >= heads.length()) {
+      throw new IllegalArgumentException("Key " + key + " is outside 0.." + (heads.length() - 1));
+    }
+    publish(key, arena.allocate(2), value);
+  }
+
+  private void publish(int key, long address, long value) {
+    arena.set(address, value);
+    long head;
+    do {
+      head = heads.get(key);
+      arena.set(address + 1, head);
+    } while (!heads.compareAndSet(key, head, address + 1));
+    size.increment();
+  }
+
+  /*
+   * A handle for one writer thread that takes its entries from a private
+   * slab of slabSize longs instead of bumping the shared arena cursor for
+   * every add. Not thread-safe; give each thread its own.
+   */
+  public Writer writer(int slabSize) {
+    return new Writer(arena.newAllocator(slabSize));
+  }
+
+  public class Writer {
+    private final ConcurrentLongArena.Allocator allocator;
+
+    Writer(ConcurrentLongArena.Allocator allocator) {
+      this.allocator = allocator;
+    }
+
+    public void add(int key, long value) {
+      if (key < 0 || key >= heads.length()) {
+        throw new IllegalArgumentException("Key " + key + " is outside 0.."
+            + (heads.length() - 1));
+      }
+      publish(key, allocator.allocate(2), value);
+    }
+  }
+
+  /*
+   * The fraction of links that jump somewhere other than the entry right
+   * before or after their own, as in LongChainIndex.fragmentation(). This
+   * one walks every chain to find out.
+   */
+  public double fragmentation() {
+    long links = 0;
+    long scattered = 0;
+    for (int key = 0; key < heads.length(); key++) {
+      for (long link = heads.get(key); link != LongChainIndex.NONE; ) {
+        long next = arena.get(link);
+        if (LongChainIndex.isScattered(link - 1, next)) {
+          scattered++;
+        }
+        links++;
+        link = next;
+      }
+    }
+    return links == 0 ? 0.0 : (double) scattered / links;
+  }
+
+  @Override
+  public int keyCount() {
+    return heads.length();
+  }
+
+  @Override
+  public long size() {
+    return size.sum();
+  }
+
+  private long head(int key) {
+    return key >= 0 && key < heads.length() ? heads.get(key) : LongChainIndex.NONE;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    long link = head(key);
+    while (link != LongChainIndex.NONE) {
+      consumer.accept(arena.get(link - 1));
+      link = arena.get(link);
+    }
+  }
+
+  @Override
+  public void free() {
+    arena.free();
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  // sees the chain as it was published at reset; later adds go in front of it
+  public class Cursor implements LongChainCursor {
+    private long link = LongChainIndex.NONE;
+
+    @Override
+    public Cursor reset(int key) {
+      link = head(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return link != LongChainIndex.NONE;
+    }
+
+    @Override
+    public long nextLong() {
+      long value = arena.get(link - 1);
+      link = arena.get(link);
+      return value;
+    }
+  }
+}
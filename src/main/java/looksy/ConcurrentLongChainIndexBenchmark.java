@@ -0,0 +1,106 @@
+package looksy;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Readers walking ConcurrentLongChainIndex chains while writers prepend to
+ * them. The index starts as the 5000 x 500 interleaved build and is
+ * rebuilt every iteration. Writers stop adding after WRITE_BUDGET entries
+ * per iteration, so chains never grow by more than a tenth and every
+ * iteration reads about the same lengths; the write score counts every
+ * call, and write:adds only those that added. Each thread's probe
+ * sequence is seeded once per trial and runs on across iterations.
+ * "mixed" runs three readers against one writer; "readOnly" is the same
+ * readers with no writer, for reference.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentLongChainIndexBenchmark {
+
+  static final long WRITE_BUDGET = 5000 * 500 / 10;
+
+  @State(Scope.Benchmark)
+  public static class IndexState {
+    ConcurrentLongChainIndex index;
+    final AtomicLong writesLeft = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      if (index != null) {
+        index.free();
+      }
+      index = new ConcurrentLongChainIndex(5000);
+      LongChainIndexBenchmark.addInterleaved(index, new Random(LookupBenchmark.SEED), 5000, 500);
+      writesLeft.set(WRITE_BUDGET);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    SplittableRandom random;
+    ConcurrentLongChainIndex.Cursor cursor;
+    int keyCount;
+
+    @Setup(Level.Trial)
+    public void seed() {
+      random = new SplittableRandom(LookupBenchmark.SEED ^ Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp(IndexState s) {
+      cursor = s.index.cursor();
+      keyCount = s.index.keyCount();
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class WriteCounters {
+    public long adds;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      adds = 0;
+    }
+  }
+
+  static void read(ThreadState t, Blackhole bh) {
+    ConcurrentLongChainIndex.Cursor cursor = t.cursor.reset(t.random.nextInt(t.keyCount));
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public void read(IndexState s, ThreadState t, Blackhole bh) {
+    read(t, bh);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public void write(IndexState s, ThreadState t, WriteCounters counters) {
+    if (s.writesLeft.getAndDecrement() > 0) {
+      s.index.add(t.random.nextInt(t.keyCount), Math.abs(t.random.nextLong()) + 1);
+      counters.adds++;
+    }
+  }
+
+  @Benchmark
+  @Group("readOnly")
+  @GroupThreads(3)
+  public void readOnly(IndexState s, ThreadState t, Blackhole bh) {
+    read(t, bh);
+  }
+}
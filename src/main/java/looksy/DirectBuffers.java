@@ -0,0 +1,97 @@
+package looksy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/*
+ * Releases direct and mapped ByteBuffers immediately instead of when the
+ * GC gets around to them. Java 9+ has Unsafe.invokeCleaner; on Java 8 we
+ * call the buffer's own cleaner.
+ *
+ * Also finds where a direct buffer sits relative to an alignment, through
+ * ByteBuffer.alignmentOffset on Java 9+ and Buffer.address on Java 8.
+ */
+final class DirectBuffers {
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+  private static final Method ALIGNMENT_OFFSET;
+  private static final Field ADDRESS;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException e) {
+      // Java 8
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+
+    Method alignmentOffset = null;
+    Field address = null;
+    try {
+      alignmentOffset = ByteBuffer.class.getMethod("alignmentOffset", int.class, int.class);
+    } catch (NoSuchMethodException e) {
+      // Java 8
+      try {
+        address = Buffer.class.getDeclaredField("address");
+        address.setAccessible(true);
+      } catch (ReflectiveOperationException | RuntimeException e2) {
+        address = null;
+      }
+    }
+    ALIGNMENT_OFFSET = alignmentOffset;
+    ADDRESS = address;
+  }
+
+  private DirectBuffers() {
+  }
+
+  static void free(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    try {
+      if (INVOKE_CLEANER != null) {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } else {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Can't free direct buffer", e);
+    }
+  }
+
+  /** Native address of byte 0 of a direct buffer, modulo unit (a power of two). */
+  static int alignmentOffset(ByteBuffer buffer, int unit) {
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException("Not a direct buffer");
+    }
+    if (unit < 1 || Integer.bitCount(unit) != 1) {
+      throw new IllegalArgumentException("Alignment " + unit + " is not a power of two");
+    }
+    try {
+      if (ALIGNMENT_OFFSET != null) {
+        return (Integer) ALIGNMENT_OFFSET.invoke(buffer, 0, unit);
+      }
+      if (ADDRESS != null) {
+        return (int) (ADDRESS.getLong(buffer) & (unit - 1));
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Can't find direct buffer address", e);
+    }
+    throw new IllegalStateException("Can't find direct buffer address on this JVM");
+  }
+}
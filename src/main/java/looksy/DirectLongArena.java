@@ -0,0 +1,111 @@
+package looksy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/*
+ * A LongArena whose pages are direct ByteBuffers, so the entries don't
+ * count against the heap and aren't scanned by the GC. Call free() to
+ * release the memory rather than waiting for the buffers to be collected.
+ *
+ * With hugePageAligned, every page starts on a HUGE_PAGE_BYTES boundary
+ * and covers whole huge pages, so when the kernel backs anonymous memory
+ * with transparent huge pages ("always" in
+ * /sys/kernel/mm/transparent_hugepage/enabled) no page shares a huge page
+ * with anything else. Java can't madvise, so in "madvise" mode direct
+ * memory stays on 4 KB pages whatever its alignment; the heap, with
+ * -XX:+UseTransparentHugePages, is the way to get huge pages there.
+ */
+public class DirectLongArena extends LongArena {
+  static final int HUGE_PAGE_BYTES = 2 << 20;
+  // a ByteBuffer is indexed by an int byte offset
+  static final int MAX_PAGE_SHIFT = 27;
+
+  ByteBuffer[] pages = new ByteBuffer[8];
+  private final boolean hugePageAligned;
+  // what allocateDirect returned, when pages are aligned slices of it
+  private ByteBuffer[] allocations;
+
+  public DirectLongArena() {
+    this(DEFAULT_PAGE_SHIFT);
+  }
+
+  public DirectLongArena(int pageShift) {
+    this(pageShift, false);
+  }
+
+  public DirectLongArena(int pageShift, boolean hugePageAligned) {
+    super(pageShift, MAX_PAGE_SHIFT);
+    if (hugePageAligned && (pageSize << 3) % HUGE_PAGE_BYTES != 0) {
+      throw new IllegalArgumentException("Pages of " + (pageSize << 3)
+          + " bytes don't cover whole huge pages");
+    }
+    this.hugePageAligned = hugePageAligned;
+    this.allocations = hugePageAligned ? new ByteBuffer[8] : null;
+  }
+
+  DirectLongArena(int pageShift, ByteBuffer[] pages, long used) {
+    super(pageShift, MAX_PAGE_SHIFT, pages.length, used);
+    this.pages = pages;
+    this.hugePageAligned = false;
+  }
+
+  @Override
+  LongArena newArena() {
+    return new DirectLongArena(pageShift, hugePageAligned);
+  }
+
+  @Override
+  void addPage() {
+    if (pageCount == pages.length) {
+      pages = Arrays.copyOf(pages, pageCount * 2);
+    }
+    int bytes = pageSize << 3;
+    if (!hugePageAligned) {
+      pages[pageCount] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+      return;
+    }
+    if (pageCount == allocations.length) {
+      allocations = Arrays.copyOf(allocations, pageCount * 2);
+    }
+    ByteBuffer allocation = ByteBuffer.allocateDirect(bytes + HUGE_PAGE_BYTES);
+    int offset = DirectBuffers.alignmentOffset(allocation, HUGE_PAGE_BYTES);
+    allocation.position((HUGE_PAGE_BYTES - offset) % HUGE_PAGE_BYTES);
+    allocation.limit(allocation.position() + bytes);
+    allocations[pageCount] = allocation;
+    pages[pageCount] = allocation.slice().order(ByteOrder.nativeOrder());
+  }
+
+  /** Whether pages start on huge page boundaries. */
+  public boolean isHugePageAligned() {
+    return hugePageAligned;
+  }
+
+  @Override
+  LongBuffer pageView(int page) {
+    // duplicate() resets the byte order, so set it again
+    return pages[page].duplicate().order(pages[page].order()).asLongBuffer();
+  }
+
+  @Override
+  public long get(long address) {
+    return pages[(int) (address >>> pageShift)].getLong(((int) address & pageMask) << 3);
+  }
+
+  @Override
+  public void set(long address, long value) {
+    pages[(int) (address >>> pageShift)].putLong(((int) address & pageMask) << 3, value);
+  }
+
+  @Override
+  public void free() {
+    ByteBuffer[] pages = hugePageAligned ? allocations : this.pages;
+    this.pages = null;
+    this.allocations = null;
+    for (int i = 0; i < pageCount; i++) {
+      DirectBuffers.free(pages[i]);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package looksy;
+
+import java.util.function.LongConsumer;
+
+/*
+ * A read-only, compressed-sparse-row copy of a LongChainIndex. The values
+ * for key k are values[offsets[k]] up to (not including)
+ * values[offsets[k + 1]], in the same newest-first order the chain had, so
+ * a lookup is a sequential scan with no next pointers to chase and half
+ * the memory of the (value, next) layout.
+ */
+public class FrozenLongChainIndex implements LongChains {
+  final int[] offsets;
+  final long[] values;
+
+  FrozenLongChainIndex(int[] offsets, long[] values) {
+    this.offsets = offsets;
+    this.values = values;
+  }
+
+  static FrozenLongChainIndex of(LongChainIndex index) {
+    if (index.size() > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Too many values to freeze: " + index.size());
+    }
+    LongChainIndex.Chains chains = index.chains();
+    LongArena arena = chains.arena;
+    int keyCount = index.keyCount();
+
+    // count each chain, then turn the counts into start offsets
+    int[] offsets = new int[keyCount + 1];
+    for (int key = 0; key < keyCount; key++) {
+      int count = 0;
+      for (long link = chains.head(key); link != LongChainIndex.NONE; link = arena.get(link)) {
+        count++;
+      }
+      offsets[key + 1] = offsets[key] + count;
+    }
+
+    long[] values = new long[offsets[keyCount]];
+    for (int key = 0; key < keyCount; key++) {
+      int i = offsets[key];
+      for (long link = chains.head(key); link != LongChainIndex.NONE; link = arena.get(link)) {
+        values[i++] = arena.get(link - 1);
+      }
+    }
+    return new FrozenLongChainIndex(offsets, values);
+  }
+
+  /** A bit-packed copy of this index; see PackedLongChainIndex. */
+  public PackedLongChainIndex pack() {
+    return PackedLongChainIndex.of(this);
+  }
+
+  @Override
+  public int keyCount() {
+    return offsets.length - 1;
+  }
+
+  @Override
+  public long size() {
+    return values.length;
+  }
+
+  /** Index into values of the first value for key. */
+  public int start(int key) {
+    return key >= 0 && key < offsets.length - 1 ? offsets[key] : 0;
+  }
+
+  /** Index into values just past the last value for key. */
+  public int end(int key) {
+    return key >= 0 && key < offsets.length - 1 ? offsets[key + 1] : 0;
+  }
+
+  public int count(int key) {
+    return end(key) - start(key);
+  }
+
+  /** Offsets and values, per value. */
+  public double bytesPerValue() {
+    long bytes = (long) offsets.length * Integer.BYTES + (long) values.length * Long.BYTES;
+    return values.length == 0 ? 0.0 : (double) bytes / values.length;
+  }
+
+  public long value(int i) {
+    return values[i];
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    long[] values = this.values;
+    for (int i = start(key), end = end(key); i < end; i++) {
+      consumer.accept(values[i]);
+    }
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  public class Cursor implements LongChainCursor {
+    private int next;
+    private int end;
+
+    @Override
+    public Cursor reset(int key) {
+      next = start(key);
+      end = end(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < end;
+    }
+
+    @Override
+    public long nextLong() {
+      return values[next++];
+    }
+  }
+}
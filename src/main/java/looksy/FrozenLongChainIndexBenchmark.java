@@ -0,0 +1,83 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Lookups in a FrozenLongChainIndex against the linked layouts it
+ * replaces: the round-robin bigArray walked directly
+ * (LookupTestPlay.lookupArrayLinkedList2) and the chains written one key at
+ * a time (LookupTest.lookupSequentialArrayLinkedList). freeze times the
+ * conversion itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FrozenLongChainIndexBenchmark {
+
+  @State(Scope.Thread)
+  public static class FrozenState extends LookupBenchmark.ProbeState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    LongChainIndex index;
+    FrozenLongChainIndex frozen;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(LookupBenchmark.SEED);
+      index = new LongChainIndex();
+      switch (scenario) {
+        case "interleaved":
+          LongChainIndexBenchmark.addInterleaved(index, r, 5000, 500);
+          break;
+        case "short":
+          LongChainIndexBenchmark.addInterleaved(index, r, 500000, 2);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown scenario " + scenario);
+      }
+      frozen = index.freeze();
+      probes = LookupBenchmark.probes(r, frozen.keyCount());
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public FrozenLongChainIndex freeze(FrozenState s) {
+    return s.index.freeze();
+  }
+
+  @Benchmark
+  public void frozen(FrozenState s, Blackhole bh) {
+    FrozenLongChainIndex frozen = s.frozen;
+    int key = s.nextProbe();
+    long[] values = frozen.values;
+    for (int i = frozen.start(key), end = frozen.end(key); i < end; i++) {
+      bh.consume(values[i]);
+    }
+  }
+
+  @Benchmark
+  public void arrayLinkedList2(LookupBenchmark.InterleavedState s, Blackhole bh) {
+    LookupBenchmark.walk(s.bigArray, s.nextHead(), bh);
+  }
+
+  @Benchmark
+  public void arrayLinkedListShort(LookupBenchmark.ShortState s, Blackhole bh) {
+    LookupBenchmark.walk(s.bigArray, s.nextHead(), bh);
+  }
+
+  @Benchmark
+  public void sequentialArrayLinkedList(LookupBenchmark.SequentialState s, Blackhole bh) {
+    LookupBenchmark.walk(s.bigArray, s.nextHead(), bh);
+  }
+}
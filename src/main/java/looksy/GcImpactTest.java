@@ -0,0 +1,173 @@
+package looksy;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+ * How much a layout's object graph costs once the heap is busy. Each
+ * layout is probed twice from one thread: first on a quiet heap, then
+ * while churnThreads other threads allocate 1 KB arrays through Churn as
+ * fast as they can, keeping the last retainedMB of them alive so that
+ * garbage reaches the old generation and old collections have to mark
+ * everything, layout included. Every row reports probe latency percentiles and the
+ * collections (count and total pause time, from the
+ * GarbageCollectorMXBeans) that happened while the probes ran.
+ *
+ * Usage: GcImpactTest <layout|all> [churnThreads] [retainedMB] [short] [lookups] [outDir]
+ *
+ * Layouts are those of ParallelLookupTest. churnThreads defaults to 1,
+ * retainedMB to 256 and lookups to 3,000,000. Every probe is timed into a
+ * LatencyHistogram; with an outDir each run's histogram is also exported
+ * there as <layout>[-short]-<quiet|churn>.hgrm.
+ */
+public class GcImpactTest {
+
+  public static void main(String[] args) throws InterruptedException, IOException {
+    if (args.length < 1) {
+      System.err.println("No layout specified");
+      System.exit(1);
+    }
+    int churnThreads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    int retainedMB = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+    boolean shortLists = args.length > 3 && args[3].equalsIgnoreCase("short");
+    long lookups = args.length > 4 ? Long.parseLong(args[4]) : 3000000L;
+    Path outDir = args.length > 5 ? Paths.get(args[5]) : null;
+
+    String[] layouts = args[0].equals("all") ? ParallelLookupTest.LAYOUTS : new String[] {args[0]};
+    for (String layout : layouts) {
+      LongChains chains = ParallelLookupTest.build(layout, shortLists);
+      if (chains == null) {
+        System.err.println("What?");
+        System.exit(2);
+      }
+      System.out.printf("%s%s, %d lookups, %d churn threads retaining %d MB\n", layout,
+          shortLists ? " (short)" : "", lookups, churnThreads, retainedMB);
+      System.out.printf("%-6s %10s %14s %9s %9s %9s %9s %6s %10s\n", "heap", "duration",
+          "lookups/sec", "p50 us", "p99 us", "p99.9 us", "max us", "gcs", "gc pause");
+      // once untimed, so both rows run compiled code
+      probe(chains, Math.min(lookups, 100000), new LatencyHistogram());
+      String name = layout + (shortLists ? "-short" : "");
+      report(name, "quiet", run(chains, lookups, 0, 0), outDir);
+      if (churnThreads > 0) {
+        report(name, "churn", run(chains, lookups, churnThreads, retainedMB), outDir);
+      }
+      System.out.println();
+      chains = null;
+    }
+  }
+
+  static void report(String name, String heap, Result result, Path outDir) throws IOException {
+    LatencyHistogram latency = result.latency;
+    System.out.printf("%-6s %8dms %14.0f %9.2f %9.2f %9.2f %9.2f %6d %8dms\n", heap,
+        result.durationNanos / 1000000, result.lookups * 1e9 / result.durationNanos,
+        latency.percentile(0.5) / 1e3, latency.percentile(0.99) / 1e3,
+        latency.percentile(0.999) / 1e3, latency.max() / 1e3, result.gcCount, result.gcMillis);
+    if (outDir != null) {
+      latency.export(outDir.resolve(name + "-" + heap + ".hgrm"));
+    }
+  }
+
+  static class Result {
+    final long lookups;
+    final long durationNanos;
+    final LatencyHistogram latency;
+    final long gcCount;
+    final long gcMillis;
+
+    Result(long lookups, long durationNanos, LatencyHistogram latency, long gcCount,
+        long gcMillis) {
+      this.lookups = lookups;
+      this.durationNanos = durationNanos;
+      this.latency = latency;
+      this.gcCount = gcCount;
+      this.gcMillis = gcMillis;
+    }
+  }
+
+  // collection count and pause time so far, over every collector
+  static long[] gcTotals() {
+    long count = 0;
+    long millis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(gc.getCollectionCount(), 0);
+      millis += Math.max(gc.getCollectionTime(), 0);
+    }
+    return new long[] {count, millis};
+  }
+
+  static Result run(LongChains chains, long lookups, int churnThreads, int retainedMB)
+      throws InterruptedException {
+    System.gc();
+    List<ChurnThread> churns = new ArrayList<>();
+    for (int t = 0; t < churnThreads; t++) {
+      ChurnThread churn = new ChurnThread(new Churn((long) retainedMB * 1024 * 1024
+          / churnThreads));
+      churn.start();
+      churns.add(churn);
+    }
+    if (churnThreads > 0) {
+      // let the churn fill its ring before measuring
+      Thread.sleep(1000);
+    }
+
+    LatencyHistogram latency = new LatencyHistogram();
+    long[] gcBefore = gcTotals();
+    long startTime = System.nanoTime();
+    probe(chains, lookups, latency);
+    long duration = System.nanoTime() - startTime;
+    long[] gcAfter = gcTotals();
+
+    for (ChurnThread churn : churns) {
+      churn.running = false;
+      churn.join();
+    }
+    return new Result(lookups, duration, latency, gcAfter[0] - gcBefore[0],
+        gcAfter[1] - gcBefore[1]);
+  }
+
+  // probes with the same key stream every time
+  static void probe(LongChains chains, long lookups, LatencyHistogram latency) {
+    SplittableRandom random = new SplittableRandom(LookupBenchmark.SEED);
+    LongChainCursor cursor = chains.cursor();
+    int keyCount = chains.keyCount();
+    long count = 0;
+    for (long i = 0; i < lookups; i++) {
+      int key = random.nextInt(keyCount);
+      long start = System.nanoTime();
+      cursor.reset(key);
+      while (cursor.hasNext()) {
+        cursor.nextLong();
+        count++;
+      }
+      latency.record(System.nanoTime() - start);
+    }
+    if (count < lookups) {
+      throw new IllegalStateException("Empty chains: " + count + " values for " + lookups
+          + " lookups");
+    }
+  }
+
+  static class ChurnThread extends Thread {
+    private final Churn churn;
+    volatile boolean running = true;
+
+    ChurnThread(Churn churn) {
+      super("churn");
+      setDaemon(true);
+      this.churn = churn;
+    }
+
+    @Override
+    public void run() {
+      while (running) {
+        churn.allocate();
+      }
+    }
+  }
+}
@@ -0,0 +1,354 @@
+package looksy;
+
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChainIndex for arbitrary long keys instead of dense 0..N ints. The
+ * head array becomes an open-addressing table of (key, head link) pairs,
+ * probed linearly like LongLongHashMap, so finding a chain costs one cache
+ * line in the common case before the walk starts. Chains live in a
+ * LongArena exactly as in LongChainIndex: 2-long entries, links are
+ * addresses plus one, newest value first.
+ *
+ * Chains never become empty, so a slot is free when its head is NONE and
+ * every key, including 0, can be stored in the table itself.
+ *
+ * Many key sets are dense anyway, just not starting at 0, and for those a
+ * plain head array indexed by key - base beats any hash table. add() keeps
+ * the smallest and largest key and stays in that direct mode while the
+ * range between them is at most maxSpread times the number of keys (or
+ * under MIN_DIRECT_RANGE). A key that stretches the range further moves the
+ * heads into the hash table, and when the table next grows it checks
+ * whether the keys have filled in enough to go back to direct heads.
+ * maxSpread 0 always hashes.
+ *
+ * An index built with filterBitsPerKey > 0 also keeps a BlockedBloomFilter
+ * of its keys, and a hashed lookup asks the filter first, so most missing
+ * keys are turned away after one cache line of filter instead of a probe
+ * sequence through the table. Direct mode skips the filter, since a miss
+ * there is a range check or a single load either way. The filter is
+ * rebuilt at twice the size whenever the keys outgrow it.
+ */
+public class HashedLongChainIndex {
+  static final int DEFAULT_MAX_SPREAD = 4;
+  // ranges this small stay direct whatever the key count
+  static final int MIN_DIRECT_RANGE = 1024;
+  static final int MAX_DIRECT_RANGE = 1 << 30;
+
+  private final LongArena arena;
+  private final double maxLoad;
+  private final int maxSpread;
+  private final int expectedKeys;
+  private final int filterBitsPerKey;
+  private BlockedBloomFilter filter;
+  private int filterCapacity;
+
+  // direct mode: the head for key is heads[key - base]; null until the first add
+  private long[] heads;
+  private long base;
+
+  // hashed mode: (key, head) pairs; null while direct
+  private long[] table;
+  private int shift;
+  private int mask;
+  private int resizeAt;
+
+  private long minKey = Long.MAX_VALUE;
+  private long maxKey = Long.MIN_VALUE;
+  private int keyCount = 0;
+  private long size = 0;
+
+  public HashedLongChainIndex() {
+    this(16, new HeapLongArena());
+  }
+
+  public HashedLongChainIndex(int expectedKeys, LongArena arena) {
+    this(expectedKeys, arena, LongLongHashMap.DEFAULT_MAX_LOAD, DEFAULT_MAX_SPREAD, 0);
+  }
+
+  public HashedLongChainIndex(int expectedKeys, LongArena arena, double maxLoad, int maxSpread) {
+    this(expectedKeys, arena, maxLoad, maxSpread, 0);
+  }
+
+  public HashedLongChainIndex(int expectedKeys, LongArena arena, double maxLoad, int maxSpread,
+      int filterBitsPerKey) {
+    if (!(maxLoad > 0 && maxLoad < 1)) {
+      throw new IllegalArgumentException("Load factor must be between 0 and 1: " + maxLoad);
+    }
+    if (maxSpread < 0) {
+      throw new IllegalArgumentException("Negative maxSpread " + maxSpread);
+    }
+    if (filterBitsPerKey < 0) {
+      throw new IllegalArgumentException("Negative filterBitsPerKey " + filterBitsPerKey);
+    }
+    this.arena = arena;
+    this.maxLoad = maxLoad;
+    this.maxSpread = maxSpread;
+    this.expectedKeys = Math.max(expectedKeys, 1);
+    this.filterBitsPerKey = filterBitsPerKey;
+    if (filterBitsPerKey > 0) {
+      filterCapacity = this.expectedKeys;
+      filter = new BlockedBloomFilter(filterCapacity, filterBitsPerKey);
+    }
+    if (maxSpread == 0) {
+      allocate(capacityFor(this.expectedKeys));
+    }
+  }
+
+  private int capacityFor(int keys) {
+    long wanted = Math.max(2, (long) Math.ceil(keys / maxLoad));
+    if (wanted > LongLongHashMap.MAX_CAPACITY) {
+      throw new IllegalArgumentException("Too many keys: " + keys);
+    }
+    return Integer.highestOneBit((int) wanted - 1) << 1;
+  }
+
+  private void allocate(int capacity) {
+    table = new long[capacity * 2];
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    mask = capacity - 1;
+    resizeAt = (int) Math.min(capacity - 1, (long) (capacity * maxLoad));
+  }
+
+  // table index of the key's slot, or of the free slot where it would go
+  private int find(long key) {
+    long[] table = this.table;
+    for (int slot = (int) ((key * LongLongHashMap.PHI) >>> shift); ; slot = (slot + 1) & mask) {
+      int i = 2 * slot;
+      if (table[i] == key || table[i + 1] == LongChainIndex.NONE) {
+        return i;
+      }
+    }
+  }
+
+  // whether minKey..maxKey is narrow enough for direct heads with this many keys
+  private boolean denseEnough(int keys) {
+    // one less than the number of keys in the range; negative if that overflowed
+    long range = maxKey - minKey;
+    return maxSpread > 0 && range >= 0 && range < MAX_DIRECT_RANGE
+        && range < Math.max(MIN_DIRECT_RANGE, (long) keys * maxSpread);
+  }
+
+  public void add(long key, long value) {
+    minKey = Math.min(minKey, key);
+    maxKey = Math.max(maxKey, key);
+    if (table == null && directOffset(key) < 0) {
+      if (denseEnough(keyCount + 1)) {
+        stretchDirect();
+      } else {
+        toHashed();
+      }
+    }
+
+    long address = arena.allocate(2);
+    arena.set(address, value);
+    long next;
+    if (table == null) {
+      int i = (int) (key - base);
+      next = heads[i];
+      heads[i] = address + 1;
+      if (next == LongChainIndex.NONE) {
+        keyCount++;
+      }
+    } else {
+      int i = find(key);
+      next = table[i + 1];
+      table[i] = key;
+      table[i + 1] = address + 1;
+      if (next == LongChainIndex.NONE && ++keyCount > resizeAt) {
+        grow();
+      }
+    }
+    arena.set(address + 1, next);
+    size++;
+    if (next == LongChainIndex.NONE && filter != null) {
+      if (keyCount > filterCapacity) {
+        rebuildFilter();
+      } else {
+        filter.add(key);
+      }
+    }
+  }
+
+  private void rebuildFilter() {
+    filterCapacity = (int) Math.min(Integer.MAX_VALUE, 2L * filterCapacity);
+    filter = new BlockedBloomFilter(filterCapacity, filterBitsPerKey);
+    if (table == null) {
+      for (int i = 0; i < heads.length; i++) {
+        if (heads[i] != LongChainIndex.NONE) {
+          filter.add(base + i);
+        }
+      }
+    } else {
+      for (int i = 0; i < table.length; i += 2) {
+        if (table[i + 1] != LongChainIndex.NONE) {
+          filter.add(table[i]);
+        }
+      }
+    }
+  }
+
+  // the key's index in heads, or -1 if heads doesn't cover it
+  private long directOffset(long key) {
+    if (heads == null) {
+      return -1;
+    }
+    // wraps to negative or past the end if the subtraction overflows
+    long offset = key - base;
+    return offset >= 0 && offset < heads.length ? offset : -1;
+  }
+
+  // widens heads to cover minKey..maxKey, with the extra room split
+  // evenly on both sides since keys may keep arriving on either
+  private void stretchDirect() {
+    int oldLength = heads == null ? 0 : heads.length;
+    long range = maxKey - minKey + 1;
+    int length = (int) Math.min(MAX_DIRECT_RANGE, Math.max(range, Math.max(16, 2L * oldLength)));
+    long newBase = minKey - (length - range) / 2;
+    if (newBase > minKey) {
+      // wrapped past Long.MIN_VALUE
+      newBase = Long.MIN_VALUE;
+    }
+    if (newBase + (length - 1) < newBase) {
+      newBase = Long.MAX_VALUE - (length - 1);
+    }
+    toDirect(newBase, length);
+  }
+
+  private void toDirect(long newBase, int length) {
+    long[] newHeads = new long[length];
+    if (table == null) {
+      if (heads != null) {
+        for (int i = 0; i < heads.length; i++) {
+          if (heads[i] != LongChainIndex.NONE) {
+            newHeads[(int) (base + i - newBase)] = heads[i];
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < table.length; i += 2) {
+        if (table[i + 1] != LongChainIndex.NONE) {
+          newHeads[(int) (table[i] - newBase)] = table[i + 1];
+        }
+      }
+    }
+    heads = newHeads;
+    base = newBase;
+    table = null;
+  }
+
+  private void toHashed() {
+    long[] heads = this.heads;
+    allocate(capacityFor(Math.max(expectedKeys, keyCount + 1)));
+    this.heads = null;
+    if (heads != null) {
+      for (int i = 0; i < heads.length; i++) {
+        if (heads[i] != LongChainIndex.NONE) {
+          int j = find(base + i);
+          table[j] = base + i;
+          table[j + 1] = heads[i];
+        }
+      }
+    }
+  }
+
+  private void grow() {
+    if (denseEnough(keyCount)) {
+      toDirect(minKey, (int) (maxKey - minKey + 1));
+      return;
+    }
+    long[] old = table;
+    if (old.length / 2 >= LongLongHashMap.MAX_CAPACITY) {
+      throw new IllegalStateException("Head table is full at " + keyCount + " keys");
+    }
+    allocate(old.length);
+    for (int i = 0; i < old.length; i += 2) {
+      if (old[i + 1] != LongChainIndex.NONE) {
+        int j = find(old[i]);
+        table[j] = old[i];
+        table[j + 1] = old[i + 1];
+      }
+    }
+  }
+
+  long head(long key) {
+    if (table == null) {
+      long offset = directOffset(key);
+      return offset < 0 ? LongChainIndex.NONE : heads[(int) offset];
+    }
+    if (filter != null && !filter.mightContain(key)) {
+      return LongChainIndex.NONE;
+    }
+    // a free slot's head is NONE, which is also the answer for a missing key
+    return table[find(key) + 1];
+  }
+
+  public boolean containsKey(long key) {
+    return head(key) != LongChainIndex.NONE;
+  }
+
+  /** Whether heads are currently indexed directly by key - base rather than hashed. */
+  public boolean isDirect() {
+    return table == null;
+  }
+
+  /** The filter in front of hashed lookups, or null if there is none. */
+  public BlockedBloomFilter filter() {
+    return filter;
+  }
+
+  /** Number of distinct keys. */
+  public int keyCount() {
+    return keyCount;
+  }
+
+  /** Number of values across all chains. */
+  public long size() {
+    return size;
+  }
+
+  /** Bytes of head array or table per key, on top of the 16 bytes per value in the arena. */
+  public double headBytesPerKey() {
+    long[] heads = table == null ? this.heads : table;
+    return keyCount == 0 ? 0.0 : (double) heads.length * Long.BYTES / keyCount;
+  }
+
+  public void forEach(long key, LongConsumer consumer) {
+    for (long link = head(key); link != LongChainIndex.NONE; link = arena.get(link)) {
+      consumer.accept(arena.get(link - 1));
+    }
+  }
+
+  public void free() {
+    arena.free();
+    heads = null;
+    table = null;
+    filter = null;
+  }
+
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  public class Cursor implements PrimitiveIterator.OfLong {
+    private long link = LongChainIndex.NONE;
+
+    public Cursor reset(long key) {
+      link = head(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return link != LongChainIndex.NONE;
+    }
+
+    @Override
+    public long nextLong() {
+      long value = arena.get(link - 1);
+      link = arena.get(link);
+      return value;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package looksy;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * HashedLongChainIndex keyed by 64-bit longs against LongChainIndex keyed
+ * by the small dense ints the other scenarios assume. All of them hold the
+ * same chains, built round-robin with the same values, and answer the
+ * same sequence of probes.
+ *
+ * "sparse" keys are random longs, so the adaptive index ends up hashing;
+ * "dense" keys are a contiguous run starting far from 0, which it indexes
+ * directly. "hashed" is the same index forced to hash either way.
+ *
+ * Keys are drawn from 2N slots, of which a random N hold chains. A slot
+ * is the int key of the 0..2N index and maps to one long key for the
+ * others: base + slot when dense, a distinct random long when sparse.
+ * hitPercent of the probes ask for a used slot; the rest ask for an
+ * unused one, the same slots for every index. So a miss is an empty head
+ * inside the array for the 0..2N index and the direct mode, and a full
+ * probe sequence ending at a free slot when hashing.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HashedLongChainIndexBenchmark {
+
+  @State(Scope.Thread)
+  public static class IndexState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    @Param({"100", "90", "50", "10", "0"})
+    int hitPercent;
+
+    @Param({"sparse", "dense"})
+    String keys;
+
+    LongChainIndex dense;
+    HashedLongChainIndex adaptive;
+    HashedLongChainIndex hashed;
+    LongChainIndex.Cursor denseCursor;
+    HashedLongChainIndex.Cursor adaptiveCursor;
+    HashedLongChainIndex.Cursor hashedCursor;
+    int[] denseProbes;
+    long[] hashedProbes;
+    int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(LookupBenchmark.SEED);
+      int keyCount = scenario.equals("short") ? 500000 : 5000;
+      int chainLength = scenario.equals("short") ? 2 : 500;
+
+      // a random half of the slots are used
+      int slotCount = 2 * keyCount;
+      int[] slots = new int[slotCount];
+      for (int slot = 0; slot < slotCount; slot++) {
+        slots[slot] = slot;
+      }
+      for (int i = slotCount - 1; i > 0; i--) {
+        int j = r.nextInt(i + 1);
+        int slot = slots[i];
+        slots[i] = slots[j];
+        slots[j] = slot;
+      }
+      int[] used = Arrays.copyOf(slots, keyCount);
+      int[] unused = Arrays.copyOfRange(slots, keyCount, slotCount);
+      Arrays.sort(used);
+
+      long[] longKeys = new long[slotCount];
+      LongLongHashMap drawn = new LongLongHashMap();
+      for (int slot = 0; slot < slotCount; slot++) {
+        if (keys.equals("dense")) {
+          longKeys[slot] = 1000000000000L + slot;
+        } else {
+          do {
+            longKeys[slot] = r.nextLong();
+          } while (drawn.containsKey(longKeys[slot]));
+          drawn.put(longKeys[slot], slot);
+        }
+      }
+
+      // round-robin over the used slots, as in addInterleaved
+      dense = new LongChainIndex(slotCount);
+      adaptive = new HashedLongChainIndex(keyCount, new HeapLongArena());
+      hashed = new HashedLongChainIndex(keyCount, new HeapLongArena(),
+          LongLongHashMap.DEFAULT_MAX_LOAD, 0);
+      for (int i = 0; i < chainLength; i++) {
+        for (int slot : used) {
+          long value = Math.abs(r.nextLong()) + 1;
+          dense.add(slot, value);
+          adaptive.add(longKeys[slot], value);
+          hashed.add(longKeys[slot], value);
+        }
+      }
+      if (adaptive.isDirect() != keys.equals("dense")) {
+        throw new IllegalStateException("Adaptive index "
+            + (adaptive.isDirect() ? "is direct" : "hashes") + " with " + keys + " keys");
+      }
+
+      denseProbes = new int[LookupBenchmark.PROBE_COUNT];
+      hashedProbes = new long[LookupBenchmark.PROBE_COUNT];
+      for (int i = 0; i < denseProbes.length; i++) {
+        int slot = r.nextInt(100) < hitPercent
+            ? used[r.nextInt(keyCount)] : unused[r.nextInt(keyCount)];
+        denseProbes[i] = slot;
+        hashedProbes[i] = longKeys[slot];
+      }
+      denseCursor = dense.cursor();
+      adaptiveCursor = adaptive.cursor();
+      hashedCursor = hashed.cursor();
+    }
+
+    int nextProbe() {
+      return probe++ & (LookupBenchmark.PROBE_COUNT - 1);
+    }
+  }
+
+  @Benchmark
+  public void dense(IndexState s, Blackhole bh) {
+    LongChainIndex.Cursor cursor = s.denseCursor.reset(s.denseProbes[s.nextProbe()]);
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void adaptive(IndexState s, Blackhole bh) {
+    HashedLongChainIndex.Cursor cursor = s.adaptiveCursor.reset(s.hashedProbes[s.nextProbe()]);
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void hashed(IndexState s, Blackhole bh) {
+    HashedLongChainIndex.Cursor cursor = s.hashedCursor.reset(s.hashedProbes[s.nextProbe()]);
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+}
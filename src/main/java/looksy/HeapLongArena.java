@@ -0,0 +1,52 @@
+package looksy;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/*
+ * A LongArena whose pages are on-heap long[]s.
+ */
+public class HeapLongArena extends LongArena {
+  long[][] pages = new long[8][];
+
+  public HeapLongArena() {
+    this(DEFAULT_PAGE_SHIFT);
+  }
+
+  public HeapLongArena(int pageShift) {
+    super(pageShift, 30);
+  }
+
+  @Override
+  LongArena newArena() {
+    return new HeapLongArena(pageShift);
+  }
+
+  @Override
+  void addPage() {
+    if (pageCount == pages.length) {
+      pages = Arrays.copyOf(pages, pageCount * 2);
+    }
+    pages[pageCount] = new long[pageSize];
+  }
+
+  @Override
+  LongBuffer pageView(int page) {
+    return LongBuffer.wrap(pages[page]);
+  }
+
+  @Override
+  public long get(long address) {
+    return pages[(int) (address >>> pageShift)][(int) address & pageMask];
+  }
+
+  @Override
+  public void set(long address, long value) {
+    pages[(int) (address >>> pageShift)][(int) address & pageMask] = value;
+  }
+
+  @Override
+  public void free() {
+    pages = null;
+  }
+}
@@ -0,0 +1,148 @@
+package looksy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * TLB sensitivity of chain walks, for arenas from 4 MB to 16 GB of
+ * (value, next) pairs, with and without huge pages. Every entry is on
+ * some chain and each op walks HOPS hops starting from a random entry.
+ *
+ * - "sprawling" links every entry into one random cycle, like
+ *   lookupSprawlingArrayLinkedList. Nearly every hop lands on a
+ *   different page, whatever the page size.
+ * - "interleaved" steps back KEY_COUNT entries per hop, which is the
+ *   stride of lookupArrayLinkedList's round-robin chains: 80 KB, so a
+ *   new 4 KB page on every hop but about 25 hops per 2 MB page.
+ *
+ * smallPages and hugePages walk the same arenas; only their forks' flags
+ * differ. Heap arenas are long[] pages on the Java heap, which
+ * -XX:+UseTransparentHugePages madvises for huge pages (the kernel's
+ * transparent_hugepage setting must be "madvise" or "always"). The JVM
+ * flags don't touch direct memory, so there the comparison is between
+ * backings instead: "directAligned" DirectLongArena pages on 2 MB
+ * boundaries against plain allocateDirect "direct" ones. Those differ
+ * only when the kernel backs anonymous memory with huge pages ("always"
+ * mode, see DirectLongArena). The kernel setting is printed with each
+ * trial.
+ *
+ * The 16 GB arenas need about 17 GB of free memory; on smaller machines
+ * pass -p arenaMB=4,64,1024. Building a sprawling cycle writes every entry
+ * in random order, so the large ones take minutes to set up.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HugePageBenchmark {
+  static final int HOPS = 1000;
+  static final int KEY_COUNT = 5000;
+
+  @State(Scope.Thread)
+  public static class ArenaState extends LookupBenchmark.ProbeState {
+    @Param({"sprawling", "interleaved"})
+    String layout;
+
+    @Param({"4", "64", "1024", "16384"})
+    long arenaMB;
+
+    @Param({"heap", "direct", "directAligned"})
+    String backing;
+
+    LongArena arena;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(LookupBenchmark.SEED);
+      long entries = (arenaMB << 20) / 16;
+      switch (backing) {
+        case "heap":
+          arena = new HeapLongArena();
+          break;
+        case "direct":
+          arena = new DirectLongArena(LongArena.DEFAULT_PAGE_SHIFT, false);
+          break;
+        case "directAligned":
+          arena = new DirectLongArena(LongArena.DEFAULT_PAGE_SHIFT, true);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown backing " + backing);
+      }
+      if (arena.reserve(entries * 2) != 0) {
+        throw new IllegalStateException("Fresh arena didn't start at 0");
+      }
+      switch (layout) {
+        case "sprawling":
+          // Sattolo's shuffle of the links leaves a single cycle
+          for (long entry = 0; entry < entries; entry++) {
+            arena.set(entry * 2, entry + 1);
+            arena.set(entry * 2 + 1, entry * 2);
+          }
+          for (long i = entries - 1; i > 0; i--) {
+            long j = Math.floorMod(r.nextLong(), i);
+            long link = arena.get(i * 2 + 1);
+            arena.set(i * 2 + 1, arena.get(j * 2 + 1));
+            arena.set(j * 2 + 1, link);
+          }
+          break;
+        case "interleaved":
+          for (long entry = 0; entry < entries; entry++) {
+            arena.set(entry * 2, entry + 1);
+            arena.set(entry * 2 + 1, Math.floorMod(entry - KEY_COUNT, entries) * 2);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown layout " + layout);
+      }
+      probes = LookupBenchmark.probes(r, (int) entries);
+      System.out.printf("%nArena: %d MB, %d entries, transparent huge pages: %s%n",
+          arena.used() >> 17, entries, transparentHugePages());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      arena.free();
+    }
+  }
+
+  // the kernel's setting, e.g. "always [madvise] never"
+  static String transparentHugePages() {
+    try (BufferedReader reader = Files.newBufferedReader(
+        Paths.get("/sys/kernel/mm/transparent_hugepage/enabled"), StandardCharsets.US_ASCII)) {
+      String line = reader.readLine();
+      return line == null ? "unknown" : line;
+    } catch (IOException e) {
+      return "unknown";
+    }
+  }
+
+  static long walk(LongArena arena, long address) {
+    long sum = 0;
+    for (int hop = 0; hop < HOPS; hop++) {
+      sum += arena.get(address);
+      address = arena.get(address + 1);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Xmx20g", "-XX:MaxDirectMemorySize=20g",
+      "-XX:-UseTransparentHugePages", "-XX:-UseLargePages"})
+  public long smallPages(ArenaState s) {
+    return walk(s.arena, 2L * s.nextProbe());
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = {"-Xmx20g", "-XX:MaxDirectMemorySize=20g",
+      "-XX:+UseTransparentHugePages"})
+  public long hugePages(ArenaState s) {
+    return walk(s.arena, 2L * s.nextProbe());
+  }
+}
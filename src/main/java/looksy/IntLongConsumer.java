@@ -0,0 +1,10 @@
+package looksy;
+
+/*
+ * Receives one value of a batched lookup along with the position of its
+ * key in the batch.
+ */
+@FunctionalInterface
+public interface IntLongConsumer {
+  void accept(int keyIndex, long value);
+}
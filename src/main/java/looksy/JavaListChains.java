@@ -0,0 +1,92 @@
+package looksy;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChains over an array of java.util.LinkedList<Long>, as in
+ * LookupTestPlay.lookUpList. Every value is a boxed Long behind a list
+ * node, so this is the heaviest object graph of all the layouts, and a
+ * cursor allocates an Iterator per lookup.
+ */
+class JavaListChains implements LongChains {
+  final List<Long>[] listArray;
+  private final long size;
+
+  JavaListChains(List<Long>[] listArray) {
+    this.listArray = listArray;
+    long size = 0;
+    for (List<Long> list : listArray) {
+      size += list.size();
+    }
+    this.size = size;
+  }
+
+  // values go to random lists, as in LookupTestPlay.lookUpList
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static JavaListChains random(Random r, int listCount, int listLength) {
+    List<Long>[] listArray = new List[listCount];
+    for (long i = 0; i < (long) listCount * listLength; i++) {
+      int index = (int) (Math.abs(r.nextLong()) % listArray.length);
+      List<Long> list = listArray[index];
+      if (list == null) {
+        list = new LinkedList<>();
+        listArray[index] = list;
+      }
+      list.add(Math.abs(r.nextLong()) + 1);
+    }
+    for (int index = 0; index < listArray.length; index++) {
+      if (listArray[index] == null) {
+        List<Long> list = new LinkedList<>();
+        listArray[index] = list;
+        for (int j = 0; j < listLength; j++) {
+          list.add(Math.abs(r.nextLong()) + 1);
+        }
+      }
+    }
+    return new JavaListChains(listArray);
+  }
+
+  @Override
+  public int keyCount() {
+    return listArray.length;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    for (Long value : listArray[key]) {
+      consumer.accept(value);
+    }
+  }
+
+  @Override
+  public LongChainCursor cursor() {
+    return new LongChainCursor() {
+      Iterator<Long> iterator;
+
+      @Override
+      public LongChainCursor reset(int key) {
+        iterator = listArray[key].iterator();
+        return this;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public long nextLong() {
+        return iterator.next();
+      }
+    };
+  }
+}
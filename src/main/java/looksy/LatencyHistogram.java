@@ -0,0 +1,168 @@
+package looksy;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Log-linear histogram of nanosecond latencies, laid out like
+ * HdrHistogram: values below 2^SUB_BITS get a bucket each, and every
+ * power of two above that is split into 2^(SUB_BITS - 1) equal buckets,
+ * so a recorded value is off by less than 1% and the whole long range
+ * fits in 7296 counters. record() is one atomic increment, safe from
+ * any number of threads without locking; reads while threads are still
+ * recording see a slightly stale but consistent-enough snapshot.
+ *
+ * export() writes the percentile distribution in HdrHistogram's .hgrm
+ * text format, so runs of different layouts can be plotted together.
+ */
+public class LatencyHistogram {
+  static final int SUB_BITS = 8;
+  static final int HALF = 1 << (SUB_BITS - 1);
+  static final int BUCKETS = (64 - SUB_BITS + 1) * HALF;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong();
+
+  static int bucket(long value) {
+    int magnitude = 64 - Long.numberOfLeadingZeros(value >>> SUB_BITS);
+    return magnitude * HALF + (int) (value >>> magnitude);
+  }
+
+  // largest value that lands in bucket
+  static long highestValue(int bucket) {
+    if (bucket < 2 * HALF) {
+      return bucket;
+    }
+    int magnitude = bucket / HALF - 1;
+    long sub = bucket - magnitude * HALF;
+    return ((sub + 1) << magnitude) - 1;
+  }
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      throw new IllegalArgumentException("Negative latency " + nanos);
+    }
+    counts.incrementAndGet(bucket(nanos));
+    long seen = max.get();
+    while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+      seen = max.get();
+    }
+  }
+
+  public long count() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /** Largest value recorded, exactly. */
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    long count = 0;
+    double total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      long n = counts.get(i);
+      count += n;
+      total += (double) n * highestValue(i);
+    }
+    return count == 0 ? 0.0 : total / count;
+  }
+
+  /*
+   * Smallest bucket value that at least fraction q (0 to 1) of the
+   * recordings are at or below; q = 1 gives the exact max.
+   */
+  public long percentile(double q) {
+    if (q < 0 || q > 1) {
+      throw new IllegalArgumentException("Quantile out of range: " + q);
+    }
+    if (q == 1) {
+      return max();
+    }
+    long count = count();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil(q * count), 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max());
+      }
+    }
+    return max();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    max.set(0);
+  }
+
+  /** Prints count, mean and p50 through max in microseconds. */
+  public void printPercentiles(PrintStream out) {
+    out.printf("%12s %10s %10s %10s %10s %10s %10s %10s\n", "probes", "mean us", "p50 us",
+        "p90 us", "p99 us", "p99.9 us", "p99.99 us", "max us");
+    out.printf("%12d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f\n", count(), mean() / 1e3,
+        percentile(0.5) / 1e3, percentile(0.9) / 1e3, percentile(0.99) / 1e3,
+        percentile(0.999) / 1e3, percentile(0.9999) / 1e3, max() / 1e3);
+  }
+
+  /*
+   * Writes the distribution as an HdrHistogram percentile table: one line
+   * per non-empty bucket with its value in microseconds, the fraction of
+   * recordings at or below it, the running count and 1 / (1 - fraction).
+   */
+  public void export(Path file) throws IOException {
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+      long count = count();
+      out.printf("%12s %14s %10s %14s\n\n", "Value", "Percentile", "TotalCount",
+          "1/(1-Percentile)");
+      long seen = 0;
+      for (int i = 0; i < BUCKETS && seen < count; i++) {
+        long n = counts.get(i);
+        if (n == 0) {
+          continue;
+        }
+        seen += n;
+        double fraction = (double) seen / count;
+        double value = Math.min(highestValue(i), max()) / 1e3;
+        if (seen < count) {
+          out.printf("%12.3f %2.12f %10d %14.2f\n", value, fraction, seen, 1 / (1 - fraction));
+        } else {
+          out.printf("%12.3f %2.12f %10d\n", value, fraction, seen);
+        }
+      }
+      out.printf("#[Mean    = %12.3f, StdDeviation   = %12.3f]\n", mean() / 1e3,
+          stdDeviation() / 1e3);
+      out.printf("#[Max     = %12.3f, Total count    = %12d]\n", max() / 1e3, count);
+      out.printf("#[Buckets = %12d, SubBuckets     = %12d]\n", 64 - SUB_BITS + 1, 2 * HALF);
+    }
+  }
+
+  private double stdDeviation() {
+    double mean = mean();
+    long count = 0;
+    double squares = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      long n = counts.get(i);
+      double delta = highestValue(i) - mean;
+      count += n;
+      squares += n * delta * delta;
+    }
+    return count == 0 ? 0.0 : Math.sqrt(squares / count);
+  }
+}
@@ -0,0 +1,107 @@
+package looksy;
+
+import java.nio.LongBuffer;
+
+/*
+ * A bump allocator over a list of power-of-two pages of longs. An address
+ * packs (page, offset) into one long as page << pageShift | offset, so the
+ * arena can hold more than the 2^31 longs of a single array. Growing adds
+ * a page and never copies existing entries, and an allocation never spans
+ * two pages, so a caller can read a whole allocation from one page.
+ *
+ * New pages read as zero. Callers that need an "empty" marker should
+ * encode it as 0 rather than pre-filling with -1 the way BlockOfLongs does.
+ *
+ * Subclasses decide where the pages live: HeapLongArena uses long[]s,
+ * DirectLongArena uses direct ByteBuffers outside the Java heap.
+ */
+public abstract class LongArena {
+  static final int DEFAULT_PAGE_SHIFT = 20;
+
+  final int pageShift;
+  final int pageSize;
+  final int pageMask;
+
+  int pageCount = 0;
+  private long cursor = 0;
+
+  LongArena(int pageShift, int maxPageShift) {
+    if (pageShift < 1 || pageShift > maxPageShift) {
+      throw new IllegalArgumentException("Page shift out of range: " + pageShift);
+    }
+    this.pageShift = pageShift;
+    this.pageSize = 1 << pageShift;
+    this.pageMask = pageSize - 1;
+  }
+
+  // wraps pages that already hold used longs, e.g. ones mapped from a file
+  LongArena(int pageShift, int maxPageShift, int pageCount, long used) {
+    this(pageShift, maxPageShift);
+    this.pageCount = pageCount;
+    this.cursor = used;
+  }
+
+  public long allocate(int size) {
+    if (size < 1 || size > pageSize) {
+      throw new IllegalArgumentException("Can't allocate " + size + " longs from "
+          + pageSize + "-long pages");
+    }
+    long address = cursor;
+    if ((address & pageMask) + size > pageSize) {
+      // skip the tail of this page rather than split the allocation
+      address = (address | pageMask) + 1;
+    }
+    int page = (int) (address >>> pageShift);
+    if (page == pageCount) {
+      addPage();
+      pageCount++;
+    }
+    cursor = address + size;
+    return address;
+  }
+
+  /*
+   * Hands out size longs in one piece, adding every page they need up
+   * front, so threads can later fill disjoint parts of the range without
+   * allocating. Unlike allocate() the range may span pages; callers that
+   * read entries from one page must keep them from straddling a boundary.
+   */
+  long reserve(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Can't reserve " + size + " longs");
+    }
+    long address = cursor;
+    long end = address + size;
+    while (((long) pageCount << pageShift) < end) {
+      addPage();
+      pageCount++;
+    }
+    cursor = end;
+    return address;
+  }
+
+  /** A new, empty arena of the same kind and page size. */
+  abstract LongArena newArena();
+
+  /** Appends page number pageCount. */
+  abstract void addPage();
+
+  /** A LongBuffer over the whole of the given page. */
+  abstract LongBuffer pageView(int page);
+
+  public abstract long get(long address);
+
+  public abstract void set(long address, long value);
+
+  /** Releases the pages. The arena can't be used afterwards. */
+  public abstract void free();
+
+  /** Address of the next allocation; everything below it has been handed out. */
+  public long used() {
+    return cursor;
+  }
+
+  public long capacity() {
+    return (long) pageCount << pageShift;
+  }
+}
@@ -0,0 +1,11 @@
+package looksy;
+
+import java.util.PrimitiveIterator;
+
+/*
+ * A reusable position in one chain. Call reset(key) once per lookup and
+ * then pull values with hasNext/nextLong; nothing is allocated per lookup.
+ */
+public interface LongChainCursor extends PrimitiveIterator.OfLong {
+  LongChainCursor reset(int key);
+}
@@ -0,0 +1,244 @@
+package looksy;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+ * An index from a dense int key to a chain of long values. This is the
+ * head array + (value, next) arena layout that LookupTest builds inline:
+ * heads[key] links to the most recently added entry for that key, and each
+ * entry is a value followed by a link to the next entry. Values come back
+ * newest first.
+ *
+ * Entries live in a LongArena. A link is the entry's arena address plus
+ * one, so 0 marks the end of a chain and neither the head array nor the
+ * arena has to be filled with -1 up front.
+ *
+ * The index has a single writer. A ChainCompactor can rewrite the chains
+ * contiguously and swap them in while readers keep going; readers pick up
+ * the heads and arena together from one volatile field per lookup.
+ */
+public class LongChainIndex implements MutableLongChains {
+  static final long NONE = 0L;
+
+  static final class Chains {
+    final long[] heads;
+    final LongArena arena;
+
+    Chains(long[] heads, LongArena arena) {
+      this.heads = heads;
+      this.arena = arena;
+    }
+
+    long head(int key) {
+      return key >= 0 && key < heads.length ? heads[key] : NONE;
+    }
+  }
+
+  private volatile Chains chains;
+  private long size = 0;
+  private int keyCount = 0;
+  // links that don't point at a neighbouring entry; see fragmentation()
+  private long scatteredLinks = 0;
+  int modCount = 0;
+
+  public LongChainIndex() {
+    this(16);
+  }
+
+  public LongChainIndex(int keyCapacity) {
+    this(keyCapacity, new HeapLongArena());
+  }
+
+  public LongChainIndex(int keyCapacity, LongArena arena) {
+    this.chains = new Chains(new long[Math.max(keyCapacity, 1)], arena);
+  }
+
+  @Override
+  public void add(int key, long value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative key " + key);
+    }
+    Chains chains = this.chains;
+    long[] heads = chains.heads;
+    if (key >= heads.length) {
+      heads = Arrays.copyOf(heads, Math.max(key + 1, heads.length * 2));
+      this.chains = chains = new Chains(heads, chains.arena);
+    }
+    if (key >= keyCount) {
+      keyCount = key + 1;
+    }
+    LongArena arena = chains.arena;
+    long address = arena.allocate(2);
+    long next = heads[key];
+    arena.set(address, value);
+    arena.set(address + 1, next);
+    heads[key] = address + 1;
+    if (isScattered(address, next)) {
+      scatteredLinks++;
+    }
+    size++;
+    modCount++;
+  }
+
+  static boolean isScattered(long address, long next) {
+    return next != NONE && Math.abs(next - 1 - address) != 2;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public int keyCount() {
+    return keyCount;
+  }
+
+  /*
+   * The fraction of links that jump somewhere other than the entry right
+   * before or after their own, i.e. the share of hops that are likely to
+   * miss the cache. 0 for chains written one key at a time, close to 1 for
+   * the round-robin build in LookupTest.
+   */
+  public double fragmentation() {
+    return size == 0 ? 0.0 : (double) scatteredLinks / size;
+  }
+
+  Chains chains() {
+    return chains;
+  }
+
+  // called by ChainCompactor once every chain has been copied
+  void install(Chains compacted, long scatteredLinks) {
+    this.chains = compacted;
+    this.scatteredLinks = scatteredLinks;
+  }
+
+  long head(int key) {
+    return chains.head(key);
+  }
+
+  LongArena arena() {
+    return chains.arena;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    Chains chains = this.chains;
+    LongArena arena = chains.arena;
+    long link = chains.head(key);
+    while (link != NONE) {
+      consumer.accept(arena.get(link - 1));
+      link = arena.get(link);
+    }
+  }
+
+  /** A reusable walker for batches of up to maxBatch keys. */
+  public BatchCursor batchCursor(int maxBatch) {
+    return new BatchCursor(maxBatch);
+  }
+
+  /*
+   * Walks the chains of a batch of keys in lockstep: each round takes one
+   * step down every chain that isn't finished yet, round-robin. The hops
+   * of different chains don't depend on each other, so the CPU can have
+   * several of their cache misses in flight at once instead of stalling
+   * on every next link of a single chain.
+   *
+   * Values of different keys come out interleaved; the consumer is told
+   * which key each value belongs to by its index in the keys array.
+   */
+  public class BatchCursor {
+    private final long[] links;
+    private final int[] keyIndexes;
+
+    BatchCursor(int maxBatch) {
+      if (maxBatch < 1) {
+        throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+      }
+      links = new long[maxBatch];
+      keyIndexes = new int[maxBatch];
+    }
+
+    public void forEach(int[] keys, int from, int count, IntLongConsumer consumer) {
+      if (count > links.length) {
+        throw new IllegalArgumentException("Batch of " + count + " keys is larger than "
+            + links.length);
+      }
+      Chains chains = LongChainIndex.this.chains;
+      LongArena arena = chains.arena;
+      long[] links = this.links;
+      int[] keyIndexes = this.keyIndexes;
+
+      int active = 0;
+      for (int i = from; i < from + count; i++) {
+        long link = chains.head(keys[i]);
+        if (link != NONE) {
+          links[active] = link;
+          keyIndexes[active] = i;
+          active++;
+        }
+      }
+      while (active > 0) {
+        int stillActive = 0;
+        for (int i = 0; i < active; i++) {
+          long link = links[i];
+          consumer.accept(keyIndexes[i], arena.get(link - 1));
+          long next = arena.get(link);
+          if (next != NONE) {
+            links[stillActive] = next;
+            keyIndexes[stillActive] = keyIndexes[i];
+            stillActive++;
+          }
+        }
+        active = stillActive;
+      }
+    }
+  }
+
+  /*
+   * Copies the chains into a read-only FrozenLongChainIndex. Call this once
+   * the build phase is over; the index itself is left as it was.
+   */
+  public FrozenLongChainIndex freeze() {
+    return FrozenLongChainIndex.of(this);
+  }
+
+  @Override
+  public void free() {
+    chains.arena.free();
+    chains = null;
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  // survives adds and compaction, but sees a chain as it was at reset
+  public class Cursor implements LongChainCursor {
+    private LongArena arena;
+    private long link = NONE;
+
+    @Override
+    public Cursor reset(int key) {
+      Chains chains = LongChainIndex.this.chains;
+      arena = chains.arena;
+      link = chains.head(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return link != NONE;
+    }
+
+    @Override
+    public long nextLong() {
+      long value = arena.get(link - 1);
+      link = arena.get(link);
+      return value;
+    }
+  }
+}
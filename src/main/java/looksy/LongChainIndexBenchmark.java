@@ -0,0 +1,108 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The array-linked-list scenarios from LookupBenchmark, run against
+ * the index classes instead of a hand-built head array and bigArray, for
+ * each ChainLayout, with the entries either on the heap or in direct
+ * buffers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LongChainIndexBenchmark {
+
+  // round-robin across keys, as in LookupTest.lookupArrayLinkedList
+  static void addInterleaved(MutableLongChains index, Random r, int keyCount, int chainLength) {
+    for (int i = 0; i < chainLength; i++) {
+      for (int key = 0; key < keyCount; key++) {
+        index.add(key, Math.abs(r.nextLong()) + 1);
+      }
+    }
+  }
+
+  // one key at a time, as in LookupTest.lookupSequentialArrayLinkedList
+  static void addSequential(MutableLongChains index, Random r, int keyCount, int chainLength) {
+    for (int key = 0; key < keyCount; key++) {
+      for (int i = 0; i < chainLength; i++) {
+        index.add(key, Math.abs(r.nextLong()) + 1);
+      }
+    }
+  }
+
+  static LongArena newArena(String kind) {
+    switch (kind) {
+      case "heap":
+        return new HeapLongArena();
+      case "direct":
+        return new DirectLongArena();
+      default:
+        throw new IllegalArgumentException("Unknown arena " + kind);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IndexState extends LookupBenchmark.ProbeState {
+    @Param({"interleaved", "sequential", "short"})
+    String scenario;
+
+    @Param({"heap", "direct"})
+    String arena;
+
+    @Param({"LINKED", "BLOCKED"})
+    ChainLayout layout;
+
+    MutableLongChains index;
+    LongChainCursor cursor;
+    LongConsumer consumer;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+      Random r = new Random(LookupBenchmark.SEED);
+      // start small so the build exercises growth
+      index = layout.newIndex(16, newArena(arena));
+      switch (scenario) {
+        case "interleaved":
+          addInterleaved(index, r, 5000, 500);
+          break;
+        case "sequential":
+          addSequential(index, r, 5000, 500);
+          break;
+        case "short":
+          addInterleaved(index, r, 500000, 2);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown scenario " + scenario);
+      }
+      probes = LookupBenchmark.probes(r, index.keyCount());
+      cursor = index.cursor();
+      consumer = bh::consume;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      index.free();
+    }
+  }
+
+  @Benchmark
+  public void cursor(IndexState s, Blackhole bh) {
+    LongChainCursor cursor = s.cursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void forEach(IndexState s) {
+    s.index.forEach(s.nextProbe(), s.consumer);
+  }
+}
@@ -0,0 +1,19 @@
+package looksy;
+
+import java.util.function.LongConsumer;
+
+/*
+ * Read access to an index from a dense int key to a chain of longs,
+ * whatever the layout behind it.
+ */
+public interface LongChains {
+  /** One more than the largest key with a chain. */
+  int keyCount();
+
+  /** Number of values across all keys. */
+  long size();
+
+  void forEach(int key, LongConsumer consumer);
+
+  LongChainCursor cursor();
+}
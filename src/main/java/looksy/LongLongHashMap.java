@@ -0,0 +1,160 @@
+package looksy;
+
+import java.util.Arrays;
+
+/*
+ * A long -> long hash map with open addressing and linear probing, to
+ * stand in for HashMap<Integer, Long> without boxing either side. Keys and
+ * values are interleaved in one long[], key at 2 * slot and value right
+ * after it, so a hit usually costs one cache line and a probe sequence
+ * walks memory forwards.
+ *
+ * A slot holding key 0 counts as empty, so key 0 itself is kept on the
+ * side. The table doubles once it is more than maxLoad full; there is no
+ * remove().
+ */
+public class LongLongHashMap {
+  static final double DEFAULT_MAX_LOAD = 0.5;
+  static final int MAX_CAPACITY = 1 << 29;
+  // 2^64 / golden ratio; the high bits of key * this spread sequential keys
+  static final long PHI = 0x9E3779B97F4A7C15L;
+
+  private final double maxLoad;
+  private long[] slots;
+  private int shift;
+  private int mask;
+  private int resizeAt;
+  private int size = 0;
+  private boolean hasZeroKey = false;
+  private long zeroValue;
+
+  public LongLongHashMap() {
+    this(16);
+  }
+
+  public LongLongHashMap(int expectedSize) {
+    this(expectedSize, DEFAULT_MAX_LOAD);
+  }
+
+  public LongLongHashMap(int expectedSize, double maxLoad) {
+    if (!(maxLoad > 0 && maxLoad < 1)) {
+      throw new IllegalArgumentException("Load factor must be between 0 and 1: " + maxLoad);
+    }
+    this.maxLoad = maxLoad;
+    long wanted = Math.max(2, (long) Math.ceil(Math.max(expectedSize, 1) / maxLoad));
+    // two longs a slot, and a long[] can't reach 2^31 elements
+    if (wanted > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Too many entries: " + expectedSize);
+    }
+    allocate(Integer.highestOneBit((int) wanted - 1) << 1);
+  }
+
+  private void allocate(int capacity) {
+    slots = new long[capacity * 2];
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    mask = capacity - 1;
+    resizeAt = (int) Math.min(capacity - 1, (long) (capacity * maxLoad));
+  }
+
+  private int slot(long key) {
+    return (int) ((key * PHI) >>> shift);
+  }
+
+  public void put(long key, long value) {
+    if (key == 0) {
+      if (!hasZeroKey) {
+        hasZeroKey = true;
+        size++;
+      }
+      zeroValue = value;
+      return;
+    }
+    long[] slots = this.slots;
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      long existing = slots[2 * slot];
+      if (existing == key) {
+        slots[2 * slot + 1] = value;
+        return;
+      }
+      if (existing == 0) {
+        slots[2 * slot] = key;
+        slots[2 * slot + 1] = value;
+        if (++size > resizeAt) {
+          grow();
+        }
+        return;
+      }
+    }
+  }
+
+  private void grow() {
+    long[] old = slots;
+    if (old.length / 2 >= MAX_CAPACITY) {
+      throw new IllegalStateException("Map is full at " + size + " entries");
+    }
+    allocate(old.length);
+    for (int i = 0; i < old.length; i += 2) {
+      long key = old[i];
+      if (key != 0) {
+        int slot = slot(key);
+        while (slots[2 * slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[2 * slot] = key;
+        slots[2 * slot + 1] = old[i + 1];
+      }
+    }
+  }
+
+  /** The value for key, or missing if there is none. */
+  public long get(long key, long missing) {
+    if (key == 0) {
+      return hasZeroKey ? zeroValue : missing;
+    }
+    long[] slots = this.slots;
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      long existing = slots[2 * slot];
+      if (existing == key) {
+        return slots[2 * slot + 1];
+      }
+      if (existing == 0) {
+        return missing;
+      }
+    }
+  }
+
+  public boolean containsKey(long key) {
+    if (key == 0) {
+      return hasZeroKey;
+    }
+    for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+      long existing = slots[2 * slot];
+      if (existing == key) {
+        return true;
+      }
+      if (existing == 0) {
+        return false;
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Slots in the table, used or not. */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /** Bytes of table per entry: 16 / load. */
+  public double bytesPerEntry() {
+    return size == 0 ? 0.0 : (double) slots.length * Long.BYTES / size;
+  }
+
+  public void clear() {
+    Arrays.fill(slots, 0L);
+    size = 0;
+    hasZeroKey = false;
+  }
+}
@@ -0,0 +1,76 @@
+package looksy;
+
+import java.util.Arrays;
+
+/*
+ * Linked-list nodes without the objects: node n's value and next link sit
+ * at the same position in a long[] page and an int[] page. A node handle
+ * is an int, its position plus one, so 0 works like null. Many lists can
+ * share one arena, and the garbage collector sees a few large arrays
+ * instead of one Node per value.
+ *
+ * Nodes are never freed individually; drop the whole arena instead.
+ */
+class LongNodeArena {
+  static final int NONE = 0;
+  static final int DEFAULT_PAGE_SHIFT = 20;
+
+  private final int pageShift;
+  private final int pageMask;
+  private long[][] values = new long[8][];
+  private int[][] next = new int[8][];
+  private int pageCount = 0;
+  private int count = 0;
+
+  LongNodeArena() {
+    this(DEFAULT_PAGE_SHIFT);
+  }
+
+  LongNodeArena(int pageShift) {
+    if (pageShift < 1 || pageShift > 30) {
+      throw new IllegalArgumentException("Page shift out of range: " + pageShift);
+    }
+    this.pageShift = pageShift;
+    this.pageMask = (1 << pageShift) - 1;
+  }
+
+  /** A new node holding value and pointing at next; returns its handle. */
+  int add(long value, int next) {
+    if (count == Integer.MAX_VALUE - 1) {
+      throw new IllegalStateException("Arena is full at " + count + " nodes");
+    }
+    int page = count >>> pageShift;
+    if (page == pageCount) {
+      addPage();
+    }
+    int offset = count & pageMask;
+    values[page][offset] = value;
+    this.next[page][offset] = next;
+    return ++count;
+  }
+
+  private void addPage() {
+    if (pageCount == values.length) {
+      values = Arrays.copyOf(values, pageCount * 2);
+      next = Arrays.copyOf(next, pageCount * 2);
+    }
+    values[pageCount] = new long[pageMask + 1];
+    next[pageCount] = new int[pageMask + 1];
+    pageCount++;
+  }
+
+  long value(int node) {
+    int index = node - 1;
+    return values[index >>> pageShift][index & pageMask];
+  }
+
+  int next(int node) {
+    int index = node - 1;
+    return next[index >>> pageShift][index & pageMask];
+  }
+
+  /** Number of nodes handed out. */
+  int count() {
+    return count;
+  }
+}
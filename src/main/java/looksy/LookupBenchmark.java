@@ -0,0 +1,596 @@
+package looksy;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * JMH versions of the scenarios in LookupTest and LookupTestPlay. Each
+ * scenario builds its structure once per trial, exactly as the hand-timed
+ * version does, and every benchmark invocation performs one probe: pick a
+ * list with the same Random stream and walk it to the end, handing each
+ * value to the Blackhole so the JIT can't drop the traversal.
+ *
+ * Build with "mvn package" and run with "java -jar target/benchmarks.jar".
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LookupBenchmark {
+  static final long SEED = 3545652656L;
+
+  // probe keys are drawn up front so the benchmark doesn't time Random
+  static final int PROBE_COUNT = 1 << 16;
+
+  static int[] probes(Random r, int bound) {
+    int[] probes = new int[PROBE_COUNT];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = (int) (Math.abs(r.nextLong()) % bound);
+    }
+    return probes;
+  }
+
+  static PrimitiveIterator.OfLong getIter(long[] array, int head) {
+    return new PrimitiveIterator.OfLong() {
+      int next = head;
+
+      public boolean hasNext() {
+        return next != -1;
+      }
+
+      public long nextLong() {
+        long value = array[next];
+        next = (int) array[next + 1];
+        return value;
+      }
+    };
+  }
+
+  // the original getIter, kept to measure what boxing costs
+  static Iterator<Long> getBoxedIter(long[] array, int head) {
+    return new Iterator<Long>() {
+      int next = head;
+
+      public boolean hasNext() {
+        return next != -1;
+      }
+
+      public Long next() {
+        long value = array[next];
+        next = (int) array[next + 1];
+        return value;
+      }
+    };
+  }
+
+  private static int findUnusedSlot(Random r, long[] array) {
+    int entryCount = array.length / 2;
+    int startSlotIndex = Math.abs(r.nextInt()) % entryCount;
+    for (int i = 0; i < entryCount; i++) {
+      int candidate = (startSlotIndex + i) % entryCount;
+      int candidateIndex = candidate * 2;
+      if (array[candidateIndex] == -1) {
+        return candidateIndex;
+      }
+    }
+    throw new RuntimeException("Unexpectedly ran out of slots!");
+  }
+
+  static int createLinkedList(Random r, long[] array, int size) {
+    int head = -1;
+    int current = -1;
+    for (int i = 0; i < size; i++) {
+      int next = findUnusedSlot(r, array);
+      array[next] = Math.abs(r.nextLong()) + 1;
+      if (head == -1) {
+        head = next;
+      } else {
+        array[current + 1] = next;
+      }
+      current = next;
+    }
+    return head;
+  }
+
+  @State(Scope.Thread)
+  public abstract static class ProbeState {
+    int[] probes;
+    int probe;
+
+    int nextProbe() {
+      return probes[probe++ & (PROBE_COUNT - 1)];
+    }
+  }
+
+  @State(Scope.Thread)
+  public abstract static class ArrayLinkedListState extends ProbeState {
+    long[] bigArray;
+    int[] headArray;
+
+    int nextHead() {
+      return headArray[nextProbe()];
+    }
+
+    // lists are built round-robin so consecutive nodes of one list are
+    // non-contiguous but descending in bigArray.
+    void buildInterleaved(Random r, int listCount, int listLength) {
+      bigArray = new long[listCount * listLength * 2];
+      BlockOfLongs bol = new BlockOfLongs(bigArray);
+      headArray = new int[listCount];
+      Arrays.fill(headArray, -1);
+      for (int i = 0; i < listLength; i++) {
+        for (int headIndex = 0; headIndex < headArray.length; headIndex++) {
+          int index = bol.allocate(2);
+          bigArray[index] = Math.abs(r.nextLong()) + 1;
+          bigArray[index + 1] = headArray[headIndex];
+          headArray[headIndex] = index;
+        }
+      }
+    }
+  }
+
+  public static class InterleavedState extends ArrayLinkedListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      buildInterleaved(r, 5000, 500);
+      probes = probes(r, headArray.length);
+    }
+  }
+
+  public static class CompactedState extends ArrayLinkedListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      buildInterleaved(r, 5000, 500);
+
+      long[] oldBigArray = bigArray;
+      bigArray = new long[oldBigArray.length];
+      BlockOfLongs bol = new BlockOfLongs(bigArray);
+      for (int headIndex = 0; headIndex < headArray.length; headIndex++) {
+        int next = headArray[headIndex];
+        headArray[headIndex] = -1;
+        while (next != -1) {
+          int index = bol.allocate(2);
+          bigArray[index] = oldBigArray[next];
+          bigArray[index + 1] = headArray[headIndex];
+          headArray[headIndex] = index;
+          next = (int) oldBigArray[next + 1];
+        }
+      }
+      probes = probes(r, headArray.length);
+    }
+  }
+
+  public static class SequentialState extends ArrayLinkedListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigArray = new long[5000 * 500 * 2];
+      BlockOfLongs bol = new BlockOfLongs(bigArray);
+      headArray = new int[5000];
+      Arrays.fill(headArray, -1);
+      for (int headIndex = 0; headIndex < headArray.length; headIndex++) {
+        for (int i = 0; i < 500; i++) {
+          int index = bol.allocate(2);
+          bigArray[index] = Math.abs(r.nextLong()) + 1;
+          bigArray[index + 1] = headArray[headIndex];
+          headArray[headIndex] = index;
+        }
+      }
+      probes = probes(r, headArray.length);
+    }
+  }
+
+  public static class RandomSlotState extends ArrayLinkedListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigArray = new long[5000 * 500 * 2];
+      Arrays.fill(bigArray, -1L);
+      headArray = new int[5000];
+      for (int index = 0; index < headArray.length; index++) {
+        headArray[index] = createLinkedList(r, bigArray, 500);
+      }
+      probes = probes(r, headArray.length);
+    }
+  }
+
+  public static class ShortState extends ArrayLinkedListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      buildInterleaved(r, 500000, 2);
+      probes = probes(r, headArray.length);
+    }
+  }
+
+  @State(Scope.Thread)
+  public abstract static class ObjectListState extends ProbeState {
+    SimpleLinkedList[] listArray;
+    LongConsumer consumer;
+
+    @Setup(Level.Trial)
+    public void setUpConsumer(Blackhole bh) {
+      consumer = bh::consume;
+    }
+
+    SimpleLinkedList nextList() {
+      return listArray[nextProbe()];
+    }
+
+    void buildInterleaved(Random r, int listCount, int listLength) {
+      listArray = new SimpleLinkedList[listCount];
+      for (int i = 0; i < listLength; i++) {
+        for (int listIndex = 0; listIndex < listArray.length; listIndex++) {
+          SimpleLinkedList list = listArray[listIndex];
+          if (list == null) {
+            list = new SimpleLinkedList();
+            listArray[listIndex] = list;
+          }
+          list.add(Math.abs(r.nextLong()) + 1);
+        }
+      }
+    }
+  }
+
+  public static class LinkedListState extends ObjectListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      buildInterleaved(r, 5000, 500);
+      probes = probes(r, listArray.length);
+    }
+  }
+
+  public static class RandomLinkedListState extends ObjectListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      listArray = new SimpleLinkedList[5000];
+      for (int i = 0; i < 2500000; i++) {
+        boolean fullList = true;
+        while (fullList) {
+          int index = (int) (Math.abs(r.nextLong()) % listArray.length);
+          SimpleLinkedList list = listArray[index];
+          if (list == null) {
+            list = new SimpleLinkedList();
+            listArray[index] = list;
+          }
+          if (list.size < 500) {
+            list.add(Math.abs(r.nextLong()) + 1);
+            fullList = false;
+          }
+        }
+      }
+      probes = probes(r, listArray.length);
+    }
+  }
+
+  public static class SequentialLinkedListState extends ObjectListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      listArray = new SimpleLinkedList[5000];
+      for (int listIndex = 0; listIndex < listArray.length; listIndex++) {
+        SimpleLinkedList list = new SimpleLinkedList();
+        listArray[listIndex] = list;
+        for (int i = 0; i < 500; i++) {
+          list.add(Math.abs(r.nextLong()) + 1);
+        }
+      }
+      probes = probes(r, listArray.length);
+    }
+  }
+
+  public static class LinkedListShortState extends ObjectListState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      buildInterleaved(r, 500000, 2);
+      probes = probes(r, listArray.length);
+    }
+  }
+
+  public static class ListState extends ProbeState {
+    List<Long>[] listArray;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() {
+      Random r = new Random(SEED);
+      listArray = new List[5000];
+      for (int i = 0; i < 2500000; i++) {
+        int index = (int) (Math.abs(r.nextLong()) % listArray.length);
+        List<Long> list = listArray[index];
+        if (list == null) {
+          list = new LinkedList<>();
+          listArray[index] = list;
+        }
+        list.add(Math.abs(r.nextLong()) + 1);
+      }
+      for (int index = 0; index < listArray.length; index++) {
+        if (listArray[index] == null) {
+          List<Long> list = new LinkedList<>();
+          listArray[index] = list;
+          for (int j = 0; j < 500; j++) {
+            list.add(Math.abs(r.nextLong()) + 1);
+          }
+        }
+      }
+      probes = probes(r, listArray.length);
+    }
+  }
+
+  public static class ArrayState extends ProbeState {
+    long[] bigArray;
+    Long[] boxedArray;
+    int sequentialIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigArray = new long[2500000];
+      boxedArray = new Long[bigArray.length];
+      for (int i = 0; i < bigArray.length; i++) {
+        bigArray[i] = Math.abs(r.nextLong()) + 1;
+        boxedArray[i] = bigArray[i];
+      }
+      probes = probes(r, bigArray.length);
+    }
+  }
+
+  public static class HashMapState extends ProbeState {
+    Map<Integer, Long> bigMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigMap = new HashMap<>();
+      for (int i = 0; i < 2500000; i++) {
+        bigMap.put(i, Math.abs(r.nextLong()) + 1);
+      }
+      probes = probes(r, bigMap.size());
+    }
+  }
+
+  public static class LongLongMapState extends ProbeState {
+    LongLongHashMap bigMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigMap = new LongLongHashMap(2500000);
+      for (int i = 0; i < 2500000; i++) {
+        bigMap.put(i, Math.abs(r.nextLong()) + 1);
+      }
+      probes = probes(r, bigMap.size());
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SprawlingLinkedListState {
+    Node head;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      int arraySize = 2500000;
+      Node[] bigArray = new Node[arraySize];
+      for (int i = 0; i < arraySize * 3; i++) {
+        int index = (int) (Math.abs(r.nextLong()) % arraySize);
+        if (bigArray[index] == null) {
+          bigArray[index] = new Node(Math.abs(r.nextLong()) + 1, null);
+        }
+      }
+      for (int index = 0; index < arraySize; index++) {
+        if (bigArray[index] == null) {
+          bigArray[index] = new Node(Math.abs(r.nextLong()) + 1, null);
+        }
+      }
+      head = bigArray[0];
+      Node current = head;
+      for (int index = 1; index < arraySize; index++) {
+        current.next = bigArray[index];
+        current = current.next;
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SingleSequentialLinkedListState {
+    Node head;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      head = new Node(Math.abs(r.nextLong() % 500000000) + 2000000, null);
+      for (int i = 1; i < 2500000; i++) {
+        head = new Node(Math.abs(r.nextLong() % 500000000) + 2000000, head);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SprawlingArrayLinkedListState {
+    long[] bigArray;
+    int head;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      bigArray = new long[2500000 * 2];
+      Arrays.fill(bigArray, -1L);
+      head = createLinkedList(r, bigArray, 2500000);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SingleSequentialArrayLinkedListState {
+    long[] bigArray;
+    int head;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random r = new Random(SEED);
+      int entryCount = 2500000;
+      bigArray = new long[entryCount * 2];
+      Arrays.fill(bigArray, -1L);
+      for (int i = 0; i < entryCount; i++) {
+        bigArray[i * 2] = Math.abs(r.nextLong() % 500000000) + 2000000;
+        if (i < entryCount - 1) {
+          bigArray[(i * 2) + 1] = (i * 2) + 2;
+        }
+      }
+      head = 0;
+    }
+  }
+
+  static void walk(long[] bigArray, int head, Blackhole bh) {
+    int next = head;
+    while (next != -1) {
+      bh.consume(bigArray[next]);
+      next = (int) bigArray[next + 1];
+    }
+  }
+
+  static void walk(Node head, Blackhole bh) {
+    Node next = head;
+    while (next != null) {
+      bh.consume(next.value);
+      next = next.next;
+    }
+  }
+
+  static void iterate(PrimitiveIterator.OfLong it, Blackhole bh) {
+    while (it.hasNext()) {
+      bh.consume(it.nextLong());
+    }
+  }
+
+  static void iterateBoxed(Iterator<Long> it, Blackhole bh) {
+    while (it.hasNext()) {
+      long value = it.next();
+      bh.consume(value);
+    }
+  }
+
+  @Benchmark
+  public void lookupArrayLinkedList(InterleavedState s, Blackhole bh) {
+    iterate(getIter(s.bigArray, s.nextHead()), bh);
+  }
+
+  @Benchmark
+  public void lookupArrayLinkedListBoxed(InterleavedState s, Blackhole bh) {
+    iterateBoxed(getBoxedIter(s.bigArray, s.nextHead()), bh);
+  }
+
+  @Benchmark
+  public void lookupArrayLinkedList2(InterleavedState s, Blackhole bh) {
+    walk(s.bigArray, s.nextHead(), bh);
+  }
+
+  @Benchmark
+  public void lookupCompactedArrayLinkedList(CompactedState s, Blackhole bh) {
+    iterate(getIter(s.bigArray, s.nextHead()), bh);
+  }
+
+  @Benchmark
+  public void lookupSequentialArrayLinkedList(SequentialState s, Blackhole bh) {
+    iterate(getIter(s.bigArray, s.nextHead()), bh);
+  }
+
+  @Benchmark
+  public void lookupRandomSlotArrayLinkedList(RandomSlotState s, Blackhole bh) {
+    iterate(getIter(s.bigArray, s.nextHead()), bh);
+  }
+
+  @Benchmark
+  public void lookupArrayLinkedListShort(ShortState s, Blackhole bh) {
+    walk(s.bigArray, s.nextHead(), bh);
+  }
+
+  @Benchmark
+  public void lookupLinkedList(LinkedListState s, Blackhole bh) {
+    iterate(s.nextList().iterator(), bh);
+  }
+
+  @Benchmark
+  public void lookupLinkedListBoxed(LinkedListState s, Blackhole bh) {
+    // PrimitiveIterator.OfLong.next() boxes, like the old Iterator<Long>
+    iterateBoxed(s.nextList().iterator(), bh);
+  }
+
+  @Benchmark
+  public void lookupLinkedListForEach(LinkedListState s) {
+    s.nextList().forEach(s.consumer);
+  }
+
+  @Benchmark
+  public void lookupRandomLinkedList(RandomLinkedListState s, Blackhole bh) {
+    iterate(s.nextList().iterator(), bh);
+  }
+
+  @Benchmark
+  public void lookupSequentialLinkedList(SequentialLinkedListState s, Blackhole bh) {
+    iterate(s.nextList().iterator(), bh);
+  }
+
+  @Benchmark
+  public void lookupLinkedListShort(LinkedListShortState s, Blackhole bh) {
+    iterate(s.nextList().iterator(), bh);
+  }
+
+  @Benchmark
+  public void lookupList(ListState s, Blackhole bh) {
+    iterateBoxed(s.listArray[s.nextProbe()].iterator(), bh);
+  }
+
+  @Benchmark
+  public long lookupArray(ArrayState s) {
+    return s.bigArray[s.nextProbe()];
+  }
+
+  @Benchmark
+  public long lookupArraySequential(ArrayState s) {
+    int index = s.sequentialIndex;
+    s.sequentialIndex = index + 1 == s.boxedArray.length ? 0 : index + 1;
+    return s.boxedArray[index];
+  }
+
+  @Benchmark
+  public long lookupHashMap(HashMapState s) {
+    return s.bigMap.get(s.nextProbe());
+  }
+
+  @Benchmark
+  public long lookupLongLongMap(LongLongMapState s) {
+    return s.bigMap.get(s.nextProbe(), 0);
+  }
+
+  @Benchmark
+  public void lookupSprawlingLinkedList(SprawlingLinkedListState s, Blackhole bh) {
+    walk(s.head, bh);
+  }
+
+  @Benchmark
+  public void lookupSingleSequentialLinkedList(SingleSequentialLinkedListState s, Blackhole bh) {
+    walk(s.head, bh);
+  }
+
+  @Benchmark
+  public void lookupSprawlingArrayLinkedList(SprawlingArrayLinkedListState s, Blackhole bh) {
+    walk(s.bigArray, s.head, bh);
+  }
+
+  @Benchmark
+  public void lookupSingleSequentialArrayLinkedList(SingleSequentialArrayLinkedListState s,
+      Blackhole bh) {
+    walk(s.bigArray, s.head, bh);
+  }
+}
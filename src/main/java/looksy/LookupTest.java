@@ -3,9 +3,25 @@ package looksy;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.util.*;
 
+/*
+ * Usage: LookupTest <testName> [pause] [latency [outFile]]
+ *
+ * With "latency", probe times also go into a LatencyHistogram: every
+ * probe of the 3M-probe tests and one in SHORT_SAMPLE_EVERY of the 750M
+ * *Short ones, where a nanoTime pair would cost as much as the probe.
+ * The percentile table is printed after the duration and, given an
+ * outFile, exported in .hgrm format.
+ */
 public class LookupTest {
+  static final int SHORT_SAMPLE_EVERY = 64;
+  private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  LatencyHistogram latency;
+  int sampleMask;
+
   class Tuple<E> {
     public E _1;
     public E _2;
@@ -23,10 +39,20 @@ public class LookupTest {
     }
     String testName = args[0];
     boolean pause = false;
-    if (args.length > 1 && args[1].equalsIgnoreCase("pause")) {
+    int arg = 1;
+    if (args.length > arg && args[arg].equalsIgnoreCase("pause")) {
       pause = true;
+      arg++;
     }
     LookupTest test = new LookupTest();
+    String outFile = null;
+    if (args.length > arg && args[arg].equalsIgnoreCase("latency")) {
+      test.latency = new LatencyHistogram();
+      test.sampleMask = testName.endsWith("Short") ? SHORT_SAMPLE_EVERY - 1 : 0;
+      if (args.length > arg + 1) {
+        outFile = args[arg + 1];
+      }
+    }
 
     Tuple<Long> tuple = null;
     switch (testName) {
@@ -56,6 +82,31 @@ public class LookupTest {
         System.exit(2);
     }
     System.out.printf("Duration: %d, count %d\n", tuple._1, tuple._2);
+    if (test.latency != null) {
+      test.latency.printPercentiles(System.out);
+      if (outFile != null) {
+        try {
+          test.latency.export(Paths.get(outFile));
+        } catch (IOException ioe) {
+          throw new RuntimeException(ioe);
+        }
+      }
+    }
+  }
+
+  // nanoTime at the start of probe i, or NOT_SAMPLED; without "latency"
+  // that's one predictable branch per probe and no nanoTime calls
+  private long sampleStart(int i) {
+    if (latency == null || (i & sampleMask) != 0) {
+      return NOT_SAMPLED;
+    }
+    return System.nanoTime();
+  }
+
+  private void sampleEnd(long probeStart) {
+    if (probeStart != NOT_SAMPLED) {
+      latency.record(System.nanoTime() - probeStart);
+    }
   }
 
   private void prompt() {
@@ -68,15 +119,15 @@ public class LookupTest {
     }
   }
 
-  private Iterator<Long> getIter(long[] array, int head) {
-    return new Iterator<Long>() {
+  private PrimitiveIterator.OfLong getIter(long[] array, int head) {
+    return new PrimitiveIterator.OfLong() {
       int next = head;
 
       public boolean hasNext() {
         return next != -1;
       }
 
-      public Long next() {
+      public long nextLong() {
         long value = array[next];
         next = (int) array[next + 1];
         return value;
@@ -84,28 +135,6 @@ public class LookupTest {
     };
   }
 
-  class BlockOfLongs {
-    long[] array;
-
-    BlockOfLongs(long[] array) {
-      this.array = array;
-      for (int i = 0; i < this.array.length; i++) {
-        this.array[i] = -1L;
-      }
-    }
-
-    int cursor = 0;
-
-    int allocate(int size) {
-      int index = cursor;
-      if (index >= array.length) {
-        throw new RuntimeException("Ran out of space! " + index);
-      }
-      cursor += size;
-      return index;
-    }
-  }
-
   Tuple<Long> lookupArrayLinkedList(boolean pause) {
     Random r = new Random(3545652656L);
 
@@ -134,13 +163,15 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 3000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % headArray.length);
-      Iterator<Long> it = getIter(bigArray, headArray[index]);
+      PrimitiveIterator.OfLong it = getIter(bigArray, headArray[index]);
       while (it.hasNext()) {
-        long value = it.next();
+        long value = it.nextLong();
         assert (value >= 2000000);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -194,55 +225,21 @@ public class LookupTest {
 
     int counter = 0;
     for (int i = 0; i < 3000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % headArray.length);
-      Iterator<Long> it = getIter(bigArray, headArray[index]);
+      PrimitiveIterator.OfLong it = getIter(bigArray, headArray[index]);
       while (it.hasNext()) {
-        long value = it.next();
+        long value = it.nextLong();
         assert (value >= 2000000);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
     return new Tuple(duration, counter);
   }
 
-  class Node {
-    long value;
-    Node next;
-
-    Node(long value, Node next) {
-      this.value = value;
-      this.next = next;
-    }
-  }
-
-  class SimpleLinkedList {
-    Node head;
-    int size = 0;
-
-    void add(long value) {
-      head = new Node(value, head);
-      size++;
-    }
-
-    Iterator<Long> iterator() {
-      return new Iterator<Long>() {
-        Node next = head;
-
-        public boolean hasNext() {
-          return next != null;
-        }
-
-        public Long next() {
-          long value = next.value;
-          next = next.next;
-          return value;
-        }
-      };
-    }
-  }
-
   Tuple<Long> lookupLinkedList(boolean pause) {
     Random r = new Random(3545652656L);
     SimpleLinkedList[] listArray = new SimpleLinkedList[5000];
@@ -266,14 +263,16 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 3000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      Iterator<Long> it = list.iterator();
+      PrimitiveIterator.OfLong it = list.iterator();
       while (it.hasNext()) {
-        long value = it.next();
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -327,13 +326,15 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 3000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % headArray.length);
-      Iterator<Long> it = getIter(bigArray, headArray[index]);
+      PrimitiveIterator.OfLong it = getIter(bigArray, headArray[index]);
       while (it.hasNext()) {
-        long value = it.next();
+        long value = it.nextLong();
         assert (value >= 2000000);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -358,13 +359,15 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 3000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -398,13 +401,15 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 750000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -440,6 +445,7 @@ public class LookupTest {
     int counter = 0;
     long startTime = System.currentTimeMillis();
     for (int i = 0; i < 750000000; i++) {
+      long probeStart = sampleStart(i);
       int index = (int) (Math.abs(r.nextLong()) % headArray.length);
       int next = headArray[index];
       while (next != -1) {
@@ -448,6 +454,7 @@ public class LookupTest {
         counter++;
         next = (int) bigArray[next + 1];
       }
+      sampleEnd(probeStart);
     }
     long duration = System.currentTimeMillis() - startTime;
 
@@ -46,6 +46,9 @@ public class LookupTestPlay {
       case "lookupHashMap":
         tuple = test.lookupHashMap();
         break;
+      case "lookupLongLongMap":
+        tuple = test.lookupLongLongMap();
+        break;
       case "lookupSprawlingLinkedList":
         tuple = test.lookupSprawlingLinkedList();
         break;
@@ -128,15 +131,15 @@ public class LookupTestPlay {
     return head;
   }
 
-  private Iterator<Long> getIter(long[] array, int head) {
-    return new Iterator<Long>() {
+  private PrimitiveIterator.OfLong getIter(long[] array, int head) {
+    return new PrimitiveIterator.OfLong() {
       int next = head;
 
       public boolean hasNext() {
         return next != -1;
       }
 
-      public Long next() {
+      public long nextLong() {
         long value = array[next];
         next = (int) array[next + 1];
         return value;
@@ -164,9 +167,9 @@ public class LookupTestPlay {
     for (int i = 0; i < 3000000; i++) {
       int index = (int) (Math.abs(r.nextLong()) % headArray.length);
       int head = headArray[index];
-      Iterator<Long> valueIt = getIter(bigArray, head);
+      PrimitiveIterator.OfLong valueIt = getIter(bigArray, head);
       while (valueIt.hasNext()) {
-        long value = valueIt.next();
+        long value = valueIt.nextLong();
         assert (value > 0);
         counter++;
       }
@@ -176,28 +179,6 @@ public class LookupTestPlay {
     return new Tuple(duration, counter);
   }
 
-  class BlockOfLongs {
-    long[] array;
-
-    BlockOfLongs(long[] array) {
-      this.array = array;
-      for (int i = 0; i < this.array.length; i++) {
-        this.array[i] = -1L;
-      }
-    }
-
-    int cursor = 0;
-
-    int allocate(int size) {
-      int index = cursor;
-      if (index >= array.length) {
-        throw new RuntimeException("Ran out of space! " + index);
-      }
-      cursor += size;
-      return index;
-    }
-  }
-
   Tuple<Long> lookupArrayLinkedList2() {
     Random r = new Random(3545652656L);
 
@@ -237,42 +218,6 @@ public class LookupTestPlay {
     return new Tuple(duration, counter);
   }
 
-  class Node {
-    long value;
-    Node next;
-
-    Node(long value, Node next) {
-      this.value = value;
-      this.next = next;
-    }
-  }
-
-  class SimpleLinkedList {
-    Node head;
-    int size = 0;
-
-    void add(long value) {
-      head = new Node(value, head);
-      size++;
-    }
-
-    Iterator<Long> iterator() {
-      return new Iterator<Long>() {
-        Node next = head;
-
-        public boolean hasNext() {
-          return next != null;
-        }
-
-        public Long next() {
-          long value = next.value;
-          next = next.next;
-          return value;
-        }
-      };
-    }
-  }
-
   Tuple<Long> lookupLinkedList() {
     Random r = new Random(3545652656L);
     SimpleLinkedList[] listArray = new SimpleLinkedList[5000];
@@ -314,8 +259,8 @@ public class LookupTestPlay {
     for (int i = 0; i < 3000000; i++) {
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
@@ -347,8 +292,8 @@ public class LookupTestPlay {
     for (int i = 0; i < 3000000; i++) {
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
@@ -431,10 +376,12 @@ public class LookupTestPlay {
   Tuple<Long> lookupHashMap() {
     Random r = new Random(3545652656L);
     int mapSize = 2500000;
+    long heapBefore = usedHeap();
     Map<Integer, Long> bigMap = new HashMap<>();
     for (int i = 0; i < mapSize; i++) {
       bigMap.put(i, Math.abs(r.nextLong()) + 1);
     }
+    System.out.printf("Bytes per entry: %.1f\n", (double) (usedHeap() - heapBefore) / mapSize);
 
     int counter = 0;
     long startTime = System.currentTimeMillis();
@@ -449,6 +396,39 @@ public class LookupTestPlay {
     return new Tuple(duration, counter);
   }
 
+  // the lookupHashMap workload on a primitive open-addressing map
+  Tuple<Long> lookupLongLongMap() {
+    Random r = new Random(3545652656L);
+    int mapSize = 2500000;
+    long heapBefore = usedHeap();
+    LongLongHashMap bigMap = new LongLongHashMap(mapSize);
+    for (int i = 0; i < mapSize; i++) {
+      bigMap.put(i, Math.abs(r.nextLong()) + 1);
+    }
+    System.out.printf("Bytes per entry: %.1f\n", (double) (usedHeap() - heapBefore) / mapSize);
+
+    int counter = 0;
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < 1500000000; i++) {
+      int index = (int) (Math.abs(r.nextLong()) % mapSize);
+      long valueAtIndex = bigMap.get(index, 0);
+      assert (valueAtIndex > 0);
+      counter++;
+    }
+    long duration = System.currentTimeMillis() - startTime;
+
+    return new Tuple(duration, counter);
+  }
+
+  // live heap after a few collections; good to a few KB, plenty per 2.5M entries
+  static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
   Tuple<Long> lookupSprawlingLinkedList() {
     Random r = new Random(3545652656L);
     int arraySize = 2500000;
@@ -597,8 +577,8 @@ public class LookupTestPlay {
     for (int i = 0; i < 3000000; i++) {
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
@@ -634,8 +614,8 @@ public class LookupTestPlay {
     for (int i = 0; i < 750000000; i++) {
       int index = (int) (Math.abs(r.nextLong()) % listArray.length);
       SimpleLinkedList list = listArray[index];
-      for (Iterator<Long> it = list.iterator(); it.hasNext(); ) {
-        long value = it.next();
+      for (PrimitiveIterator.OfLong it = list.iterator(); it.hasNext(); ) {
+        long value = it.nextLong();
         assert (value > 0);
         counter++;
       }
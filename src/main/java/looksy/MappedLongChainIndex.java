@@ -0,0 +1,256 @@
+package looksy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/*
+ * A read-only LongChainIndex served straight out of a memory-mapped file.
+ * write() dumps an index's head array and arena pages as they are, and
+ * open() maps them back with FileChannel.map, so reopening costs a few
+ * mmap calls no matter how big the index is. Pages are faulted in by the
+ * first lookups that touch them.
+ *
+ * File layout, little-endian:
+ *
+ *   0   magic "LKCHAIN1"
+ *   8   version (int), pageShift (int)
+ *   16  keyCount (int), unused (int)
+ *   24  size (long), arena used (long)
+ *   40  offset of the first arena page (long)
+ *   64  keyCount head links (long each, 0 = empty)
+ *   ... arena pages, each 8 << pageShift bytes, starting on a 4096-byte
+ *       boundary; the last page stops at the arena's used mark
+ *
+ * Pages are mapped back as DirectLongArena pages, so write() only takes
+ * arenas whose page shift DirectLongArena supports, and the heads have to
+ * fit one mapping.
+ */
+public class MappedLongChainIndex implements LongChains, Closeable {
+  static final long MAGIC = 0x314e494148434b4cL; // "LKCHAIN1" read little-endian
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 64;
+  static final int ALIGNMENT = 4096;
+  static final int MAX_KEYS = Integer.MAX_VALUE >> 3;
+
+  private final int keyCount;
+  private final long size;
+  private MappedByteBuffer heads;
+  private DirectLongArena arena;
+
+  private MappedLongChainIndex(int keyCount, long size, MappedByteBuffer heads,
+      DirectLongArena arena) {
+    this.keyCount = keyCount;
+    this.size = size;
+    this.heads = heads;
+    this.arena = arena;
+  }
+
+  public static void write(LongChainIndex index, Path path) throws IOException {
+    LongArena arena = index.arena();
+    int keyCount = index.keyCount();
+    if (arena.pageShift > DirectLongArena.MAX_PAGE_SHIFT) {
+      throw new IllegalArgumentException("Page shift " + arena.pageShift
+          + " can't be mapped back; the most is " + DirectLongArena.MAX_PAGE_SHIFT);
+    }
+    if (keyCount > MAX_KEYS) {
+      throw new IllegalArgumentException("Too many keys to map: " + keyCount);
+    }
+    long used = arena.used();
+    long pageBytes = 8L << arena.pageShift;
+    long entriesOffset = align(HEADER_SIZE + 8L * keyCount);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putLong(MAGIC);
+      header.putInt(VERSION);
+      header.putInt(arena.pageShift);
+      header.putInt(keyCount);
+      header.putInt(0);
+      header.putLong(index.size());
+      header.putLong(used);
+      header.putLong(entriesOffset);
+      header.rewind();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+
+      MappedByteBuffer out = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+          8L * keyCount);
+      LongBuffer heads = out.asLongBuffer();
+      for (int key = 0; key < keyCount; key++) {
+        heads.put(index.head(key));
+      }
+      out.force();
+      DirectBuffers.free(out);
+
+      int pageCount = pageCount(used, arena.pageShift);
+      for (int page = 0; page < pageCount; page++) {
+        long length = Math.min(pageBytes, 8 * used - page * pageBytes);
+        LongBuffer src = arena.pageView(page);
+        src.limit((int) (length >>> 3));
+        out = map(channel, FileChannel.MapMode.READ_WRITE, entriesOffset + page * pageBytes,
+            length);
+        out.asLongBuffer().put(src);
+        out.force();
+        DirectBuffers.free(out);
+      }
+    }
+  }
+
+  public static MappedLongChainIndex open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE) {
+        throw new IOException(path + " is too short to be an index file");
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException(path + " ended inside its header");
+        }
+      }
+      header.rewind();
+      if (header.getLong() != MAGIC) {
+        throw new IOException(path + " is not an index file");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(path + " has unsupported version " + version);
+      }
+      int pageShift = header.getInt();
+      int keyCount = header.getInt();
+      header.getInt();
+      long size = header.getLong();
+      long used = header.getLong();
+      long entriesOffset = header.getLong();
+      if (pageShift < 1 || pageShift > DirectLongArena.MAX_PAGE_SHIFT) {
+        throw new IOException(path + " has unsupported page shift " + pageShift);
+      }
+      if (keyCount < 0 || keyCount > MAX_KEYS) {
+        throw new IOException(path + " has a bad key count " + keyCount);
+      }
+      if (HEADER_SIZE + 8L * keyCount > channel.size()) {
+        throw new IOException(path + " is truncated: " + keyCount + " heads don't fit in "
+            + channel.size() + " bytes");
+      }
+      if (entriesOffset < align(HEADER_SIZE + 8L * keyCount) || entriesOffset % ALIGNMENT != 0) {
+        throw new IOException(path + " has a bad entries offset " + entriesOffset);
+      }
+      // an empty arena writes no pages, so the file may stop short of entriesOffset
+      if (used < 0 || used > 0 && (entriesOffset > channel.size()
+          || used > (channel.size() - entriesOffset) / 8)) {
+        throw new IOException(path + " is truncated: " + used + " longs don't fit after "
+            + "offset " + entriesOffset + " of " + channel.size() + " bytes");
+      }
+      if (size < 0 || size > used / 2) {
+        throw new IOException(path + " has a bad size " + size + " for " + used + " longs");
+      }
+
+      MappedByteBuffer heads = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+          8L * keyCount);
+      long pageBytes = 8L << pageShift;
+      ByteBuffer[] pages = new ByteBuffer[pageCount(used, pageShift)];
+      for (int page = 0; page < pages.length; page++) {
+        long length = Math.min(pageBytes, 8 * used - page * pageBytes);
+        pages[page] = map(channel, FileChannel.MapMode.READ_ONLY,
+            entriesOffset + page * pageBytes, length);
+      }
+      return new MappedLongChainIndex(keyCount, size, heads,
+          new DirectLongArena(pageShift, pages, used));
+    }
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode,
+      long position, long length) throws IOException {
+    MappedByteBuffer buffer = channel.map(mode, position, length);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private static long align(long offset) {
+    return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  private static int pageCount(long used, int pageShift) {
+    return (int) ((used + (1L << pageShift) - 1) >>> pageShift);
+  }
+
+  /** Touches every mapped page so later lookups don't take page faults. */
+  public void load() {
+    heads.load();
+    for (int page = 0; page < arena.pageCount; page++) {
+      ((MappedByteBuffer) arena.pages[page]).load();
+    }
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public int keyCount() {
+    return keyCount;
+  }
+
+  private long head(int key) {
+    return key >= 0 && key < keyCount ? heads.getLong(key << 3) : LongChainIndex.NONE;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    long link = head(key);
+    DirectLongArena arena = this.arena;
+    while (link != LongChainIndex.NONE) {
+      consumer.accept(arena.get(link - 1));
+      link = arena.get(link);
+    }
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /** Unmaps the file. The index can't be used afterwards. */
+  @Override
+  public void close() {
+    if (arena != null) {
+      arena.free();
+      DirectBuffers.free(heads);
+      arena = null;
+      heads = null;
+    }
+  }
+
+  public class Cursor implements LongChainCursor {
+    private long link = LongChainIndex.NONE;
+
+    @Override
+    public Cursor reset(int key) {
+      link = head(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return link != LongChainIndex.NONE;
+    }
+
+    @Override
+    public long nextLong() {
+      long value = arena.get(link - 1);
+      link = arena.get(link);
+      return value;
+    }
+  }
+}
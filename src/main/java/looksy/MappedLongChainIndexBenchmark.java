@@ -0,0 +1,137 @@
+package looksy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Restart cost of rebuilding a LongChainIndex from scratch versus reopening
+ * it from a MappedLongChainIndex file, and steady-state lookups against the
+ * two. The single-shot benchmarks run without warmup in fresh forks so each
+ * shot sees an unmapped file, though the file itself is usually still in
+ * the OS page cache from when setup wrote it; drop the page cache between
+ * runs to measure a cold disk.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MappedLongChainIndexBenchmark {
+
+  static LongChainIndex build(String scenario) {
+    Random r = new Random(LookupBenchmark.SEED);
+    LongChainIndex index = new LongChainIndex();
+    switch (scenario) {
+      case "interleaved":
+        LongChainIndexBenchmark.addInterleaved(index, r, 5000, 500);
+        break;
+      case "short":
+        LongChainIndexBenchmark.addInterleaved(index, r, 500000, 2);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown scenario " + scenario);
+    }
+    return index;
+  }
+
+  @State(Scope.Benchmark)
+  public static class FileState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    LongChainIndex index;
+    Path path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      index = build(scenario);
+      path = Files.createTempFile("lookuptest", ".idx");
+      MappedLongChainIndex.write(index, path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class LookupState extends LookupBenchmark.ProbeState {
+    LongChainIndex.Cursor heapCursor;
+    MappedLongChainIndex mapped;
+    MappedLongChainIndex.Cursor mappedCursor;
+
+    @Setup(Level.Trial)
+    public void setUp(FileState file) throws IOException {
+      heapCursor = file.index.cursor();
+      mapped = MappedLongChainIndex.open(file.path);
+      mapped.load();
+      mappedCursor = mapped.cursor();
+      probes = LookupBenchmark.probes(new Random(LookupBenchmark.SEED + 1), mapped.keyCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      mapped.close();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(10)
+  public LongChainIndex rebuild(FileState file) {
+    return build(file.scenario);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(10)
+  public long open(FileState file) throws IOException {
+    try (MappedLongChainIndex mapped = MappedLongChainIndex.open(file.path)) {
+      return mapped.size();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(10)
+  public void openAndFirstLookup(FileState file, Blackhole bh) throws IOException {
+    try (MappedLongChainIndex mapped = MappedLongChainIndex.open(file.path)) {
+      MappedLongChainIndex.Cursor cursor = mapped.cursor().reset(mapped.keyCount() / 2);
+      while (cursor.hasNext()) {
+        bh.consume(cursor.nextLong());
+      }
+    }
+  }
+
+  @Benchmark
+  public void heapLookup(LookupState s, Blackhole bh) {
+    LongChainIndex.Cursor cursor = s.heapCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void mappedLookup(LookupState s, Blackhole bh) {
+    MappedLongChainIndex.Cursor cursor = s.mappedCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package looksy;
+
+/*
+ * LongChains that can be built up one value at a time. Implementations
+ * have a single writer.
+ */
+public interface MutableLongChains extends LongChains {
+  /** Prepends value to key's chain. */
+  void add(int key, long value);
+
+  /** Releases the memory behind the chains. They can't be used afterwards. */
+  void free();
+}
@@ -0,0 +1,11 @@
+package looksy;
+
+class Node {
+  long value;
+  Node next;
+
+  Node(long value, Node next) {
+    this.value = value;
+    this.next = next;
+  }
+}
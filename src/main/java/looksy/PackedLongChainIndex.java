@@ -0,0 +1,232 @@
+package looksy;
+
+import java.util.function.LongConsumer;
+
+/*
+ * FrozenLongChainIndex with its values compressed. The values array is cut
+ * into blocks of BLOCK_SIZE, and each block is stored frame-of-reference:
+ * its minimum, plus every value's difference from it packed into the
+ * fewest bits that hold the block's largest difference. 128 values of
+ * width w take exactly 2w longs, so every block starts on a word and
+ * blockWords[b] = 2 * (sum of the widths before b). Blocks run straight
+ * across chain boundaries, as the values do in FrozenLongChainIndex.
+ *
+ * Any value can be read on its own in a few shifts (value(i), which the
+ * Cursor uses), and forEach() unpacks whole blocks at a time with a
+ * straight-line loop and no branch per value. packed has two spare words
+ * at the end so both can always read the word after the current one, even
+ * from an empty (width 0) last block.
+ */
+public class PackedLongChainIndex implements LongChains {
+  static final int BLOCK_SHIFT = 7;
+  static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+  final int[] offsets;
+  final long[] mins;
+  final byte[] widths;
+  final int[] blockWords;
+  final long[] packed;
+
+  PackedLongChainIndex(int[] offsets, long[] mins, byte[] widths, int[] blockWords,
+      long[] packed) {
+    this.offsets = offsets;
+    this.mins = mins;
+    this.widths = widths;
+    this.blockWords = blockWords;
+    this.packed = packed;
+  }
+
+  public static PackedLongChainIndex of(FrozenLongChainIndex frozen) {
+    long[] values = frozen.values;
+    int blocks = (values.length + BLOCK_MASK) >>> BLOCK_SHIFT;
+    long[] mins = new long[blocks];
+    byte[] widths = new byte[blocks];
+    int[] blockWords = new int[blocks + 1];
+
+    for (int b = 0; b < blocks; b++) {
+      int from = b << BLOCK_SHIFT;
+      int to = Math.min(from + BLOCK_SIZE, values.length);
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int i = from; i < to; i++) {
+        min = Math.min(min, values[i]);
+        max = Math.max(max, values[i]);
+      }
+      // max - min may overflow a signed long, but is right read as unsigned
+      int width = 64 - Long.numberOfLeadingZeros(max - min);
+      mins[b] = min;
+      widths[b] = (byte) width;
+      long words = (long) blockWords[b] + 2 * width;
+      if (words > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Too many values to pack: " + values.length);
+      }
+      blockWords[b + 1] = (int) words;
+    }
+
+    long[] packed = new long[blockWords[blocks] + 2];
+    for (int b = 0; b < blocks; b++) {
+      int width = widths[b];
+      if (width == 0) {
+        continue;
+      }
+      long bit = (long) blockWords[b] << 6;
+      for (int i = b << BLOCK_SHIFT, to = Math.min(i + BLOCK_SIZE, values.length); i < to;
+          i++, bit += width) {
+        long delta = values[i] - mins[b];
+        int word = (int) (bit >>> 6);
+        int shift = (int) bit & 63;
+        packed[word] |= delta << shift;
+        if (shift + width > 64) {
+          packed[word + 1] |= delta >>> (64 - shift);
+        }
+      }
+    }
+    return new PackedLongChainIndex(frozen.offsets, mins, widths, blockWords, packed);
+  }
+
+  @Override
+  public int keyCount() {
+    return offsets.length - 1;
+  }
+
+  @Override
+  public long size() {
+    return offsets[offsets.length - 1];
+  }
+
+  public int start(int key) {
+    return key >= 0 && key < offsets.length - 1 ? offsets[key] : 0;
+  }
+
+  public int end(int key) {
+    return key >= 0 && key < offsets.length - 1 ? offsets[key + 1] : 0;
+  }
+
+  /** Offsets, block headers and packed words, per value. */
+  public double bytesPerValue() {
+    long bytes = (long) offsets.length * Integer.BYTES + (long) packed.length * Long.BYTES
+        + (long) mins.length * Long.BYTES + widths.length
+        + (long) blockWords.length * Integer.BYTES;
+    return size() == 0 ? 0.0 : (double) bytes / size();
+  }
+
+  public long value(int i) {
+    int block = i >>> BLOCK_SHIFT;
+    int width = widths[block];
+    long bit = ((long) blockWords[block] << 6) + (long) (i & BLOCK_MASK) * width;
+    int word = (int) (bit >>> 6);
+    int shift = (int) bit & 63;
+    // two shifts so that shift 0 moves the next word out entirely
+    long bits = (packed[word] >>> shift) | (packed[word + 1] << 1 << (63 - shift));
+    return mins[block] + (bits & mask(width));
+  }
+
+  static long mask(int width) {
+    return width == 64 ? -1L : (1L << width) - 1;
+  }
+
+  // unpacks values from..to, which must lie in one block, into out from 0
+  void unpack(int from, int to, long[] out) {
+    int block = from >>> BLOCK_SHIFT;
+    int width = widths[block];
+    long min = mins[block];
+    long mask = mask(width);
+    long[] packed = this.packed;
+    long bit = ((long) blockWords[block] << 6) + (long) (from & BLOCK_MASK) * width;
+    for (int i = 0, n = to - from; i < n; i++, bit += width) {
+      int word = (int) (bit >>> 6);
+      int shift = (int) bit & 63;
+      long bits = (packed[word] >>> shift) | (packed[word + 1] << 1 << (63 - shift));
+      out[i] = min + (bits & mask);
+    }
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    long[] packed = this.packed;
+    for (int i = start(key), end = end(key); i < end; ) {
+      int block = i >>> BLOCK_SHIFT;
+      int width = widths[block];
+      long min = mins[block];
+      long mask = mask(width);
+      long bit = ((long) blockWords[block] << 6) + (long) (i & BLOCK_MASK) * width;
+      for (int to = Math.min(end, (i | BLOCK_MASK) + 1); i < to; i++, bit += width) {
+        int word = (int) (bit >>> 6);
+        int shift = (int) bit & 63;
+        long bits = (packed[word] >>> shift) | (packed[word + 1] << 1 << (63 - shift));
+        consumer.accept(min + (bits & mask));
+      }
+    }
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  public class Cursor implements LongChainCursor {
+    private int next;
+    private int end;
+
+    @Override
+    public Cursor reset(int key) {
+      next = start(key);
+      end = end(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < end;
+    }
+
+    @Override
+    public long nextLong() {
+      return value(next++);
+    }
+  }
+
+  /*
+   * A cursor that unpacks a block's worth of the chain at a time into a
+   * buffer and hands values out from there, for long chains where the
+   * per-value decode of Cursor adds up.
+   */
+  public BlockCursor blockCursor() {
+    return new BlockCursor();
+  }
+
+  public class BlockCursor implements LongChainCursor {
+    private final long[] buffer = new long[BLOCK_SIZE];
+    private int next;
+    private int end;
+    private int buffered;
+    private int position;
+
+    @Override
+    public BlockCursor reset(int key) {
+      next = start(key);
+      end = end(key);
+      buffered = 0;
+      position = 0;
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < buffered || next < end;
+    }
+
+    @Override
+    public long nextLong() {
+      if (position == buffered) {
+        int to = Math.min(end, (next | BLOCK_MASK) + 1);
+        unpack(next, to, buffer);
+        buffered = to - next;
+        position = 0;
+        next = to;
+      }
+      return buffer[position++];
+    }
+  }
+}
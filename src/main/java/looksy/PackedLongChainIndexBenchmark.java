@@ -0,0 +1,95 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Decode cost against footprint: the same chains as a FrozenLongChainIndex
+ * and as a PackedLongChainIndex, read through the per-value Cursor, the
+ * buffering BlockCursor and forEach. "full" values are the usual
+ * Math.abs(nextLong()) + 1, which leave nothing to pack; "bounded" are the
+ * 29-bit values of LookupTestPlay.lookupSequentialArrayLinkedList. Setup
+ * prints bytes per value for both layouts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PackedLongChainIndexBenchmark {
+
+  @State(Scope.Thread)
+  public static class PackedState extends LookupBenchmark.ProbeState {
+    @Param({"interleaved", "short"})
+    String scenario;
+
+    @Param({"full", "bounded"})
+    String values;
+
+    FrozenLongChainIndex frozen;
+    PackedLongChainIndex packed;
+    FrozenLongChainIndex.Cursor frozenCursor;
+    PackedLongChainIndex.Cursor cursor;
+    PackedLongChainIndex.BlockCursor blockCursor;
+    LongConsumer consumer;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+      Random r = new Random(LookupBenchmark.SEED);
+      int keyCount = scenario.equals("short") ? 500000 : 5000;
+      int chainLength = scenario.equals("short") ? 2 : 500;
+      boolean bounded = values.equals("bounded");
+      LongChainIndex index = new LongChainIndex(keyCount);
+      for (int i = 0; i < chainLength; i++) {
+        for (int key = 0; key < keyCount; key++) {
+          index.add(key, bounded
+              ? Math.abs(r.nextLong() % 500000000) + 2000000 : Math.abs(r.nextLong()) + 1);
+        }
+      }
+      frozen = index.freeze();
+      index.free();
+      packed = frozen.pack();
+      System.out.printf("%nbytes per value: frozen %.2f, packed %.2f%n",
+          frozen.bytesPerValue(), packed.bytesPerValue());
+
+      probes = LookupBenchmark.probes(r, keyCount);
+      frozenCursor = frozen.cursor();
+      cursor = packed.cursor();
+      blockCursor = packed.blockCursor();
+      consumer = bh::consume;
+    }
+  }
+
+  @Benchmark
+  public void frozen(PackedState s, Blackhole bh) {
+    FrozenLongChainIndex.Cursor cursor = s.frozenCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void packedCursor(PackedState s, Blackhole bh) {
+    PackedLongChainIndex.Cursor cursor = s.cursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void packedBlockCursor(PackedState s, Blackhole bh) {
+    PackedLongChainIndex.BlockCursor cursor = s.blockCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void packedForEach(PackedState s) {
+    s.packed.forEach(s.nextProbe(), s.consumer);
+  }
+}
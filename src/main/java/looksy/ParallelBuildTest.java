@@ -0,0 +1,116 @@
+package looksy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * Builds the 5000 x 500 interleaved ConcurrentLongChainIndex from 1 up to
+ * maxThreads threads and prints how the build scales. Thread t owns the
+ * keys with key % threads == t and adds to them round robin, 500 rounds, so
+ * every thread does the same work and a single thread reproduces the
+ * interleaved build.
+ *
+ * "shared" has every add bump the arena's atomic cursor; "tlab" gives each
+ * thread a Writer that claims slabSize longs at a time and bump-allocates
+ * inside its slab with no synchronization. The fragmentation column is the
+ * share of links that don't go to a neighbouring entry, which shows how
+ * far apart consecutive values of a chain end up.
+ *
+ * Usage: ParallelBuildTest <shared|tlab|all> [maxThreads] [slabSize]
+ *
+ * Each row is the best of RUNS builds.
+ */
+public class ParallelBuildTest {
+  static final String[] ALLOCATORS = {"shared", "tlab"};
+  static final int LIST_COUNT = 5000;
+  static final int LIST_LENGTH = 500;
+  static final int RUNS = 3;
+
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 1) {
+      System.err.println("No allocator specified");
+      System.exit(1);
+    }
+    int maxThreads = args.length > 1
+        ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    int slabSize = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+    String[] allocators = args[0].equals("all") ? ALLOCATORS : new String[] {args[0]};
+    long entries = (long) LIST_COUNT * LIST_LENGTH;
+    for (String allocator : allocators) {
+      if (!allocator.equals("shared") && !allocator.equals("tlab")) {
+        System.err.println("What?");
+        System.exit(2);
+      }
+      boolean tlab = allocator.equals("tlab");
+      System.out.printf("%s%s, %d entries\n", allocator,
+          tlab ? " (" + slabSize + "-long slabs)" : "", entries);
+      System.out.printf("%8s %12s %16s %8s %14s\n",
+          "threads", "duration", "entries/sec", "speedup", "fragmentation");
+      long baseline = 0;
+      for (int threads = 1; threads <= maxThreads; threads++) {
+        long best = Long.MAX_VALUE;
+        double fragmentation = 0;
+        for (int run = 0; run < RUNS; run++) {
+          ConcurrentLongChainIndex index = new ConcurrentLongChainIndex(LIST_COUNT);
+          long duration = build(index, threads, tlab ? slabSize : 0);
+          if (index.size() != entries) {
+            throw new IllegalStateException("Built " + index.size() + " of " + entries);
+          }
+          if (duration < best) {
+            best = duration;
+            fragmentation = index.fragmentation();
+          }
+          index.free();
+        }
+        if (threads == 1) {
+          baseline = best;
+        }
+        System.out.printf("%8d %10dms %16.0f %7.2fx %14.3f\n", threads,
+            best / 1000000, entries * 1e9 / best, (double) baseline / best, fragmentation);
+      }
+      System.out.println();
+    }
+  }
+
+  /* Returns the build time in nanoseconds. slabSize 0 adds through the shared cursor. */
+  static long build(ConcurrentLongChainIndex index, int threadCount, int slabSize)
+      throws InterruptedException {
+    SplittableRandom seeds = new SplittableRandom(LookupBenchmark.SEED);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      int first = t;
+      SplittableRandom random = seeds.split();
+      Thread thread = new Thread(() -> {
+        ConcurrentLongChainIndex.Writer writer = slabSize > 0 ? index.writer(slabSize) : null;
+        try {
+          start.await();
+        } catch (InterruptedException ie) {
+          return;
+        }
+        for (int i = 0; i < LIST_LENGTH; i++) {
+          for (int key = first; key < LIST_COUNT; key += threadCount) {
+            long value = Math.abs(random.nextLong()) + 1;
+            if (writer != null) {
+              writer.add(key, value);
+            } else {
+              index.add(key, value);
+            }
+          }
+        }
+      }, "build-" + t);
+      threads.add(thread);
+      thread.start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return System.nanoTime() - startTime;
+  }
+}
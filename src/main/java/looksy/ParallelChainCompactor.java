@@ -0,0 +1,153 @@
+package looksy;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * The same compaction as ChainCompactor.compact(), split across a
+ * ForkJoinPool. One parallel pass counts every chain, a prefix sum over
+ * the counts gives each chain its place in the new arena, and a second
+ * parallel pass copies disjoint ranges of chains into those places. The
+ * serial compactor also lays chains out back to back in key order, 2
+ * longs an entry, so both produce the same heads and the same arena.
+ *
+ * Nothing may add to the index while this runs. As with ChainCompactor,
+ * readers keep using the old chains until the new ones are installed, and
+ * the old arena is returned rather than freed.
+ */
+public class ParallelChainCompactor {
+  // below this, splitting a task costs more than it saves
+  static final int MIN_KEYS_PER_TASK = 256;
+  static final long MIN_ENTRIES_PER_TASK = 1 << 15;
+
+  /** Compacts the index on the given pool and returns the retired arena. */
+  public static LongArena compact(LongChainIndex index, ForkJoinPool pool) {
+    int expectedModCount = index.modCount;
+    LongChainIndex.Chains source = index.chains();
+    int keyCount = index.keyCount();
+
+    // offsets[key + 1] is the length of the key's chain, then the prefix sum
+    long[] offsets = new long[keyCount + 1];
+    pool.invoke(new Count(source, offsets, 0, keyCount));
+    for (int key = 0; key < keyCount; key++) {
+      offsets[key + 1] += offsets[key];
+    }
+
+    LongArena target = source.arena.newArena();
+    // 2-long entries never straddle the even-sized pages, so the reserved
+    // range is exactly where allocate(2) would have put them one by one
+    target.reserve(2 * offsets[keyCount]);
+    long[] heads = new long[source.heads.length];
+    pool.invoke(new Copy(source, target, offsets, heads, 0, keyCount));
+
+    if (index.modCount != expectedModCount) {
+      target.free();
+      throw new IllegalStateException("Index was added to during compaction");
+    }
+    // every link now points at the next entry over
+    index.install(new LongChainIndex.Chains(heads, target), 0);
+    return source.arena;
+  }
+
+  static final class Count extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final LongChainIndex.Chains source;
+    private final long[] offsets;
+    private final int from;
+    private final int to;
+
+    Count(LongChainIndex.Chains source, long[] offsets, int from, int to) {
+      this.source = source;
+      this.offsets = offsets;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > MIN_KEYS_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Count(source, offsets, from, middle),
+            new Count(source, offsets, middle, to));
+        return;
+      }
+      LongArena arena = source.arena;
+      for (int key = from; key < to; key++) {
+        long length = 0;
+        for (long link = source.head(key); link != LongChainIndex.NONE; link = arena.get(link)) {
+          length++;
+        }
+        offsets[key + 1] = length;
+      }
+    }
+  }
+
+  static final class Copy extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final LongChainIndex.Chains source;
+    private final LongArena target;
+    private final long[] offsets;
+    private final long[] heads;
+    private final int from;
+    private final int to;
+
+    Copy(LongChainIndex.Chains source, LongArena target, long[] offsets, long[] heads,
+        int from, int to) {
+      this.source = source;
+      this.target = target;
+      this.offsets = offsets;
+      this.heads = heads;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      // split on entries rather than keys, so a few long chains don't end
+      // up in one task
+      if (to - from > 1 && offsets[to] - offsets[from] > MIN_ENTRIES_PER_TASK) {
+        int middle = split();
+        invokeAll(new Copy(source, target, offsets, heads, from, middle),
+            new Copy(source, target, offsets, heads, middle, to));
+        return;
+      }
+      LongArena arena = source.arena;
+      for (int key = from; key < to; key++) {
+        long link = source.head(key);
+        if (link == LongChainIndex.NONE) {
+          continue;
+        }
+        long address = 2 * offsets[key];
+        heads[key] = address + 1;
+        while (true) {
+          target.set(address, arena.get(link - 1));
+          link = arena.get(link);
+          if (link == LongChainIndex.NONE) {
+            break;
+          }
+          // the link of the last entry is already 0, the end of the chain
+          target.set(address + 1, address + 3);
+          address += 2;
+        }
+      }
+    }
+
+    // the first key past the halfway entry, kept strictly inside (from, to)
+    private int split() {
+      long half = (offsets[from] + offsets[to]) >>> 1;
+      int low = from + 1;
+      int high = to - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (offsets[middle] < half) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
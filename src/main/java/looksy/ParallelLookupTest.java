@@ -0,0 +1,172 @@
+package looksy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * Probes a shared, read-only structure from several threads at once and
+ * prints how throughput scales from 1 to maxThreads threads for each
+ * layout. The lookups are split evenly across the threads; each thread
+ * draws keys from its own SplittableRandom and counts values into its own
+ * padded counter, so the threads share nothing but the structure.
+ *
+ * Usage: ParallelLookupTest <layout|all> [maxThreads] [short] [lookups]
+ *
+ * Layouts are the 5000 x 500 builds from LookupTest, or the 500000 x 2
+ * builds with "short". Lookups default to 3,000,000, or 750,000,000 for
+ * short lists, as in LookupTest.
+ */
+public class ParallelLookupTest {
+  static final String[] LAYOUTS = {
+      "arrayLinkedList", "linkedList", "sprawlingLinkedList", "javaLinkedList",
+      "arenaLinkedList", "index", "blocked", "frozen", "compacted", "split"};
+
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 1) {
+      System.err.println("No layout specified");
+      System.exit(1);
+    }
+    int maxThreads = args.length > 1
+        ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    boolean shortLists = args.length > 2 && args[2].equalsIgnoreCase("short");
+    long lookups = args.length > 3
+        ? Long.parseLong(args[3]) : shortLists ? 750000000L : 3000000L;
+
+    String[] layouts = args[0].equals("all") ? LAYOUTS : new String[] {args[0]};
+    for (String layout : layouts) {
+      LongChains chains = build(layout, shortLists);
+      if (chains == null) {
+        System.err.println("What?");
+        System.exit(2);
+      }
+      System.out.printf("%s%s, %d lookups\n", layout, shortLists ? " (short)" : "", lookups);
+      System.out.printf("%8s %12s %16s %8s %16s\n",
+          "threads", "duration", "lookups/sec", "speedup", "count");
+      long baseline = 0;
+      for (int threads = 1; threads <= maxThreads; threads++) {
+        Result result = probe(chains, threads, lookups);
+        if (threads == 1) {
+          baseline = result.durationNanos;
+        }
+        System.out.printf("%8d %10dms %16.0f %7.2fx %16d\n", threads,
+            result.durationNanos / 1000000, lookups * 1e9 / result.durationNanos,
+            (double) baseline / result.durationNanos, result.count);
+      }
+      System.out.println();
+    }
+  }
+
+  static LongChains build(String layout, boolean shortLists) {
+    Random r = new Random(LookupBenchmark.SEED);
+    int listCount = shortLists ? 500000 : 5000;
+    int listLength = shortLists ? 2 : 500;
+    switch (layout) {
+      case "arrayLinkedList":
+        return ArrayLinkedListChains.interleaved(r, listCount, listLength);
+      case "linkedList":
+        return SimpleLinkedListChains.interleaved(r, listCount, listLength);
+      case "sprawlingLinkedList":
+        return SimpleLinkedListChains.sprawling(r, listCount, listLength);
+      case "arenaLinkedList":
+        return ArenaLinkedListChains.interleaved(r, listCount, listLength);
+      case "javaLinkedList":
+        return JavaListChains.random(r, listCount, listLength);
+      case "split": {
+        SplitLongChainIndex index = new SplitLongChainIndex(listCount);
+        LongChainIndexBenchmark.addInterleaved(index, r, listCount, listLength);
+        return index;
+      }
+      case "index":
+      case "blocked":
+      case "frozen":
+      case "compacted": {
+        ChainLayout chainLayout = layout.equals("blocked") ? ChainLayout.BLOCKED : ChainLayout.LINKED;
+        MutableLongChains index = chainLayout.newIndex(listCount, new HeapLongArena());
+        LongChainIndexBenchmark.addInterleaved(index, r, listCount, listLength);
+        if (layout.equals("frozen")) {
+          return ((LongChainIndex) index).freeze();
+        }
+        if (layout.equals("compacted")) {
+          new ChainCompactor((LongChainIndex) index, Integer.MAX_VALUE)
+              .compactIfFragmented(ChainCompactor.DEFAULT_THRESHOLD);
+        }
+        return index;
+      }
+      default:
+        return null;
+    }
+  }
+
+  static class Result {
+    final long durationNanos;
+    final long count;
+
+    Result(long durationNanos, long count) {
+      this.durationNanos = durationNanos;
+      this.count = count;
+    }
+  }
+
+  // padding on both sides keeps each thread's counter on its own cache line
+  static class LhsPadding {
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+
+  static class CounterValue extends LhsPadding {
+    long value;
+  }
+
+  static class PaddedCounter extends CounterValue {
+    long q1, q2, q3, q4, q5, q6, q7;
+  }
+
+  static Result probe(LongChains chains, int threadCount, long lookups)
+      throws InterruptedException {
+    SplittableRandom seeds = new SplittableRandom(LookupBenchmark.SEED);
+    PaddedCounter[] counters = new PaddedCounter[threadCount];
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    int keyCount = chains.keyCount();
+    for (int t = 0; t < threadCount; t++) {
+      PaddedCounter counter = new PaddedCounter();
+      counters[t] = counter;
+      SplittableRandom random = seeds.split();
+      // spread the remainder over the first threads
+      long share = lookups / threadCount + (t < lookups % threadCount ? 1 : 0);
+      Thread thread = new Thread(() -> {
+        LongChainCursor cursor = chains.cursor();
+        try {
+          start.await();
+        } catch (InterruptedException ie) {
+          return;
+        }
+        for (long i = 0; i < share; i++) {
+          cursor.reset(random.nextInt(keyCount));
+          while (cursor.hasNext()) {
+            long value = cursor.nextLong();
+            assert (value > 0);
+            counter.value++;
+          }
+        }
+      }, "probe-" + t);
+      threads.add(thread);
+      thread.start();
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long duration = System.nanoTime() - startTime;
+
+    long count = 0;
+    for (PaddedCounter counter : counters) {
+      count += counter.value;
+    }
+    return new Result(duration, count);
+  }
+}
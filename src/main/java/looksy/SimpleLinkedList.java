@@ -0,0 +1,36 @@
+package looksy;
+
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+class SimpleLinkedList {
+  Node head;
+  int size = 0;
+
+  void add(long value) {
+    head = new Node(value, head);
+    size++;
+  }
+
+  PrimitiveIterator.OfLong iterator() {
+    return new PrimitiveIterator.OfLong() {
+      Node next = head;
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public long nextLong() {
+        long value = next.value;
+        next = next.next;
+        return value;
+      }
+    };
+  }
+
+  void forEach(LongConsumer consumer) {
+    for (Node next = head; next != null; next = next.next) {
+      consumer.accept(next.value);
+    }
+  }
+}
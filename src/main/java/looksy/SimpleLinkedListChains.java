@@ -0,0 +1,112 @@
+package looksy;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChains over an array of SimpleLinkedLists, one list per key.
+ */
+class SimpleLinkedListChains implements LongChains {
+  final SimpleLinkedList[] listArray;
+  private final long size;
+
+  SimpleLinkedListChains(SimpleLinkedList[] listArray) {
+    this.listArray = listArray;
+    long size = 0;
+    for (SimpleLinkedList list : listArray) {
+      size += list.size;
+    }
+    this.size = size;
+  }
+
+  // round-robin, as in LookupTest.lookupLinkedList
+  static SimpleLinkedListChains interleaved(Random r, int listCount, int listLength) {
+    SimpleLinkedList[] listArray = new SimpleLinkedList[listCount];
+    for (int i = 0; i < listLength; i++) {
+      for (int listIndex = 0; listIndex < listArray.length; listIndex++) {
+        SimpleLinkedList list = listArray[listIndex];
+        if (list == null) {
+          list = new SimpleLinkedList();
+          listArray[listIndex] = list;
+        }
+        list.add(Math.abs(r.nextLong()) + 1);
+      }
+    }
+    return new SimpleLinkedListChains(listArray);
+  }
+
+  /*
+   * The nodes of LookupBenchmark.SprawlingLinkedListState: created in
+   * random slot order, so neighbouring slots were allocated far apart, then
+   * cut into listCount lists of listLength consecutive slots. A lookup
+   * walks the same number of nodes as in interleaved(), but every hop
+   * lands somewhere unrelated on the heap.
+   */
+  static SimpleLinkedListChains sprawling(Random r, int listCount, int listLength) {
+    int nodeCount = listCount * listLength;
+    Node[] slots = new Node[nodeCount];
+    for (int i = 0; i < nodeCount * 3; i++) {
+      int index = (int) (Math.abs(r.nextLong()) % nodeCount);
+      if (slots[index] == null) {
+        slots[index] = new Node(Math.abs(r.nextLong()) + 1, null);
+      }
+    }
+    for (int index = 0; index < nodeCount; index++) {
+      if (slots[index] == null) {
+        slots[index] = new Node(Math.abs(r.nextLong()) + 1, null);
+      }
+    }
+    SimpleLinkedList[] listArray = new SimpleLinkedList[listCount];
+    for (int listIndex = 0; listIndex < listCount; listIndex++) {
+      int first = listIndex * listLength;
+      for (int index = first; index < first + listLength - 1; index++) {
+        slots[index].next = slots[index + 1];
+      }
+      SimpleLinkedList list = new SimpleLinkedList();
+      list.head = slots[first];
+      list.size = listLength;
+      listArray[listIndex] = list;
+    }
+    return new SimpleLinkedListChains(listArray);
+  }
+
+  @Override
+  public int keyCount() {
+    return listArray.length;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    listArray[key].forEach(consumer);
+  }
+
+  @Override
+  public LongChainCursor cursor() {
+    return new LongChainCursor() {
+      Node next;
+
+      @Override
+      public LongChainCursor reset(int key) {
+        next = listArray[key].head;
+        return this;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public long nextLong() {
+        long value = next.value;
+        next = next.next;
+        return value;
+      }
+    };
+  }
+}
@@ -0,0 +1,149 @@
+package looksy;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+ * LongChainIndex with the (value, next) pairs split into two parallel
+ * arrays: values in long[] pages and next links in int[] pages. A link is
+ * an entry number rather than an array offset, plus one so 0 can end a
+ * chain, and is read as an unsigned int, so one index holds up to
+ * 2^32 - 1 entries at 12 bytes each instead of 16.
+ *
+ * The catch is that a hop now reads two arrays, so a cold entry can cost
+ * two cache misses where the interleaved layout pays one.
+ */
+public class SplitLongChainIndex implements MutableLongChains {
+  static final int DEFAULT_PAGE_SHIFT = 20;
+  static final long MAX_ENTRIES = (1L << 32) - 1;
+
+  private final int pageShift;
+  private final int pageSize;
+  private final int pageMask;
+  private long[][] values = new long[8][];
+  private int[][] next = new int[8][];
+  private int pageCount = 0;
+  private int[] heads;
+  private long size = 0;
+  private int keyCount = 0;
+
+  public SplitLongChainIndex() {
+    this(16);
+  }
+
+  public SplitLongChainIndex(int keyCapacity) {
+    this(keyCapacity, DEFAULT_PAGE_SHIFT);
+  }
+
+  public SplitLongChainIndex(int keyCapacity, int pageShift) {
+    if (pageShift < 1 || pageShift > 30) {
+      throw new IllegalArgumentException("Page shift out of range: " + pageShift);
+    }
+    this.pageShift = pageShift;
+    this.pageSize = 1 << pageShift;
+    this.pageMask = pageSize - 1;
+    this.heads = new int[Math.max(keyCapacity, 1)];
+  }
+
+  @Override
+  public void add(int key, long value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative key " + key);
+    }
+    if (size == MAX_ENTRIES) {
+      throw new IllegalStateException("Index is full at " + MAX_ENTRIES + " entries");
+    }
+    if (key >= heads.length) {
+      heads = Arrays.copyOf(heads, Math.max(key + 1, heads.length * 2));
+    }
+    if (key >= keyCount) {
+      keyCount = key + 1;
+    }
+    int page = (int) (size >>> pageShift);
+    if (page == pageCount) {
+      addPage();
+    }
+    int offset = (int) size & pageMask;
+    values[page][offset] = value;
+    next[page][offset] = heads[key];
+    // wraps to negative past 2^31; links are read back as unsigned
+    heads[key] = (int) (size + 1);
+    size++;
+  }
+
+  private void addPage() {
+    if (pageCount == values.length) {
+      values = Arrays.copyOf(values, pageCount * 2);
+      next = Arrays.copyOf(next, pageCount * 2);
+    }
+    values[pageCount] = new long[pageSize];
+    next[pageCount] = new int[pageSize];
+    pageCount++;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public int keyCount() {
+    return keyCount;
+  }
+
+  private int head(int key) {
+    return key >= 0 && key < heads.length ? heads[key] : 0;
+  }
+
+  @Override
+  public void forEach(int key, LongConsumer consumer) {
+    for (int link = head(key); link != 0; ) {
+      long entry = (link & 0xFFFFFFFFL) - 1;
+      int page = (int) (entry >>> pageShift);
+      int offset = (int) entry & pageMask;
+      consumer.accept(values[page][offset]);
+      link = next[page][offset];
+    }
+  }
+
+  /** Bytes per entry of values and links, counting unused page tails. */
+  public double bytesPerEntry() {
+    return size == 0 ? 0.0 : (double) pageCount * pageSize * (Long.BYTES + Integer.BYTES) / size;
+  }
+
+  @Override
+  public void free() {
+    values = null;
+    next = null;
+    heads = null;
+  }
+
+  @Override
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  public class Cursor implements LongChainCursor {
+    private int link;
+
+    @Override
+    public Cursor reset(int key) {
+      link = head(key);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return link != 0;
+    }
+
+    @Override
+    public long nextLong() {
+      long entry = (link & 0xFFFFFFFFL) - 1;
+      int page = (int) (entry >>> pageShift);
+      int offset = (int) entry & pageMask;
+      link = next[page][offset];
+      return values[page][offset];
+    }
+  }
+}
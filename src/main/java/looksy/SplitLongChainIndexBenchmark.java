@@ -0,0 +1,78 @@
+package looksy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The interleaved (value, next) layout of LongChainIndex against
+ * SplitLongChainIndex's separate value and int link arrays, on the same
+ * builds. Fewer bytes per entry and more entries per cache line for the
+ * split layout; one cache line per hop instead of two for the interleaved
+ * one. Setup prints bytes per entry for both.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SplitLongChainIndexBenchmark {
+
+  @State(Scope.Thread)
+  public static class IndexState extends LookupBenchmark.ProbeState {
+    @Param({"interleaved", "sequential", "short"})
+    String scenario;
+
+    LongChainIndex linked;
+    SplitLongChainIndex split;
+    LongChainIndex.Cursor linkedCursor;
+    SplitLongChainIndex.Cursor splitCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      linked = build(new LongChainIndex(), scenario);
+      split = build(new SplitLongChainIndex(), scenario);
+      System.out.printf("%nbytes per entry: linked %.2f, split %.2f%n",
+          (double) linked.arena().capacity() * Long.BYTES / linked.size(), split.bytesPerEntry());
+      probes = LookupBenchmark.probes(new Random(LookupBenchmark.SEED + 1), split.keyCount());
+      linkedCursor = linked.cursor();
+      splitCursor = split.cursor();
+    }
+  }
+
+  static <T extends MutableLongChains> T build(T index, String scenario) {
+    Random r = new Random(LookupBenchmark.SEED);
+    switch (scenario) {
+      case "interleaved":
+        LongChainIndexBenchmark.addInterleaved(index, r, 5000, 500);
+        break;
+      case "sequential":
+        LongChainIndexBenchmark.addSequential(index, r, 5000, 500);
+        break;
+      case "short":
+        LongChainIndexBenchmark.addInterleaved(index, r, 500000, 2);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown scenario " + scenario);
+    }
+    return index;
+  }
+
+  @Benchmark
+  public void linked(IndexState s, Blackhole bh) {
+    LongChainIndex.Cursor cursor = s.linkedCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+
+  @Benchmark
+  public void split(IndexState s, Blackhole bh) {
+    SplitLongChainIndex.Cursor cursor = s.splitCursor.reset(s.nextProbe());
+    while (cursor.hasNext()) {
+      bh.consume(cursor.nextLong());
+    }
+  }
+}
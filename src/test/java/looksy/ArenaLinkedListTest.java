@@ -0,0 +1,90 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ArenaLinkedListTest {
+
+  private static List<Long> values(PrimitiveIterator.OfLong it) {
+    List<Long> values = new ArrayList<>();
+    while (it.hasNext()) {
+      values.add(it.nextLong());
+    }
+    return values;
+  }
+
+  private static void assertSame(SimpleLinkedList expected, ArenaLinkedList actual) {
+    assertEquals(expected.size, actual.size);
+    List<Long> values = values(expected.iterator());
+    assertEquals(values, values(actual.iterator()));
+    List<Long> forEach = new ArrayList<>();
+    actual.forEach(forEach::add);
+    assertEquals(values, forEach);
+  }
+
+  @Test
+  public void sharedArenaBehavesLikeSimpleLinkedLists() {
+    // 16-node pages, so the arena adds thousands of pages as the lists grow
+    LongNodeArena nodes = new LongNodeArena(4);
+    SimpleLinkedList[] expected = new SimpleLinkedList[1000];
+    ArenaLinkedList[] actual = new ArenaLinkedList[expected.length];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = new SimpleLinkedList();
+      actual[i] = new ArenaLinkedList(nodes);
+    }
+    Random r = new Random(LookupBenchmark.SEED);
+    // the last tenth of the lists never get a value
+    for (int i = 0; i < 50000; i++) {
+      int list = r.nextInt(900);
+      long value = r.nextLong();
+      expected[list].add(value);
+      actual[list].add(value);
+    }
+    assertEquals(50000, nodes.count());
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void emptyList() {
+    ArenaLinkedList list = new ArenaLinkedList(new LongNodeArena());
+    assertEquals(0, list.size);
+    assertFalse(list.iterator().hasNext());
+    assertSame(new SimpleLinkedList(), list);
+  }
+
+  @Test
+  public void roundRobinLikeLookupTest() {
+    LongNodeArena nodes = new LongNodeArena();
+    SimpleLinkedList[] expected = new SimpleLinkedList[500];
+    ArenaLinkedList[] actual = new ArenaLinkedList[expected.length];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = new SimpleLinkedList();
+      actual[i] = new ArenaLinkedList(nodes);
+    }
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 50; i++) {
+      for (int list = 0; list < expected.length; list++) {
+        long value = Math.abs(r.nextLong()) + 1;
+        expected[list].add(value);
+        actual[list].add(value);
+      }
+    }
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i], actual[i]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsPageShiftOutOfRange() {
+    new LongNodeArena(31);
+  }
+}
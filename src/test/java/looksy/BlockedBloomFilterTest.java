@@ -0,0 +1,101 @@
+package looksy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BlockedBloomFilterTest {
+
+  @Test
+  public void noFalseNegatives() {
+    BlockedBloomFilter filter = new BlockedBloomFilter(100000, 10);
+    Random r = new Random(LookupBenchmark.SEED);
+    long[] keys = new long[100000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = r.nextLong();
+      filter.add(keys[i]);
+    }
+    for (long key : keys) {
+      assertTrue(filter.mightContain(key));
+    }
+  }
+
+  @Test
+  public void falsePositiveRateIsLow() {
+    BlockedBloomFilter filter = new BlockedBloomFilter(100000, 10);
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 100000; i++) {
+      filter.add(r.nextLong());
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (filter.mightContain(r.nextLong())) {
+        falsePositives++;
+      }
+    }
+    // about 1% for a plain Bloom filter at 10 bits per key; blocking costs a little
+    assertTrue("false positives: " + falsePositives, falsePositives < 3000);
+  }
+
+  @Test
+  public void sequentialKeysStaySpread() {
+    BlockedBloomFilter filter = new BlockedBloomFilter(100000, 10);
+    for (long key = 0; key < 100000; key++) {
+      filter.add(key);
+    }
+    int falsePositives = 0;
+    for (long key = 100000; key < 200000; key++) {
+      if (filter.mightContain(key)) {
+        falsePositives++;
+      }
+    }
+    assertTrue("false positives: " + falsePositives, falsePositives < 3000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroBitsPerKey() {
+    new BlockedBloomFilter(10, 0);
+  }
+
+  @Test
+  public void filteredIndexMatchesReference() {
+    // sized for 16 keys, so the filter is rebuilt several times
+    HashedLongChainIndex index = new HashedLongChainIndex(16, new HeapLongArena(),
+        LongLongHashMap.DEFAULT_MAX_LOAD, HashedLongChainIndex.DEFAULT_MAX_SPREAD, 10);
+    HashedLongChainIndexTest.Reference reference = new HashedLongChainIndexTest.Reference();
+    Random r = new Random(LookupBenchmark.SEED);
+    long[] keys = new long[5000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = r.nextLong();
+    }
+    for (int i = 0; i < 50000; i++) {
+      reference.add(keys[r.nextInt(keys.length)], r.nextLong(), index);
+    }
+    assertFalse(index.isDirect());
+    assertNotNull(index.filter());
+    reference.assertMatches(index);
+    for (int i = 0; i < 10000; i++) {
+      reference.assertMisses(index, r.nextLong());
+    }
+  }
+
+  @Test
+  public void filteredIndexGoingDirectMatchesReference() {
+    HashedLongChainIndex index = new HashedLongChainIndex(16, new HeapLongArena(),
+        LongLongHashMap.DEFAULT_MAX_LOAD, HashedLongChainIndex.DEFAULT_MAX_SPREAD, 10);
+    HashedLongChainIndexTest.Reference reference = new HashedLongChainIndexTest.Reference();
+    for (long key = 0; key < 300; key++) {
+      reference.add(key * 1000, key, index);
+    }
+    assertFalse(index.isDirect());
+    for (long key = 0; key < 300000; key += 2) {
+      reference.add(key, key, index);
+    }
+    assertTrue(index.isDirect());
+    reference.assertMatches(index);
+  }
+}
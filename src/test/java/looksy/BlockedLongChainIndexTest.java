@@ -0,0 +1,101 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BlockedLongChainIndexTest {
+
+  @Test
+  public void interleavedMatchesReference() {
+    BlockedLongChainIndex index = new BlockedLongChainIndex(500, new HeapLongArena());
+    ChainsReference reference = new ChainsReference();
+    reference.addInterleaved(new Random(LookupBenchmark.SEED), 500, 50, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void randomKeysGrowTheHeads() {
+    BlockedLongChainIndex index = new BlockedLongChainIndex(1, new HeapLongArena());
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 10000, 50000, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void chainsAroundBlockBoundaries() {
+    // 7 values fill a default block, so 6, 7, 8 and 14 end just short of,
+    // exactly at and just past one block, and exactly at two
+    BlockedLongChainIndex index = new BlockedLongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    Random r = new Random(LookupBenchmark.SEED);
+    int[] lengths = {0, 1, 6, 7, 8, 13, 14, 15, 21, 100};
+    for (int i = 0; i < 100; i++) {
+      for (int key = 0; key < lengths.length; key++) {
+        if (i < lengths[key]) {
+          reference.add(key, r.nextLong(), index);
+        }
+      }
+    }
+    reference.assertMatches(index);
+    assertEquals(lengths.length, index.keyCount());
+  }
+
+  @Test
+  public void otherBlockSizes() {
+    for (int blockSize : new int[] {2, 4, 16, 64}) {
+      BlockedLongChainIndex index = new BlockedLongChainIndex(16, new HeapLongArena(10),
+          blockSize);
+      ChainsReference reference = new ChainsReference();
+      reference.addRandom(new Random(LookupBenchmark.SEED), 200, 20000, index);
+      reference.assertMatches(index);
+    }
+  }
+
+  @Test
+  public void zeroAndNegativeValuesAreKept() {
+    BlockedLongChainIndex index = new BlockedLongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    for (int i = 0; i < 20; i++) {
+      reference.add(0, 0, index);
+      reference.add(1, -i, index);
+      reference.add(2, i % 2 == 0 ? Long.MIN_VALUE : Long.MAX_VALUE, index);
+    }
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void layoutsAgree() {
+    for (ChainLayout layout : ChainLayout.values()) {
+      MutableLongChains index = layout.newIndex(16, new HeapLongArena());
+      ChainsReference reference = new ChainsReference();
+      reference.addRandom(new Random(LookupBenchmark.SEED), 1000, 20000, index);
+      reference.assertMatches(index);
+    }
+  }
+
+  @Test
+  public void fullBlocksArePacked() {
+    HeapLongArena arena = new HeapLongArena();
+    BlockedLongChainIndex index = new BlockedLongChainIndex(1, arena);
+    for (int i = 0; i < 70; i++) {
+      index.add(0, i);
+    }
+    // ten 8-long blocks, no more
+    assertEquals(80, arena.used());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNonPowerOfTwoBlocks() {
+    new BlockedLongChainIndex(16, new HeapLongArena(), 6);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUsedArena() {
+    HeapLongArena arena = new HeapLongArena();
+    arena.allocate(1);
+    new BlockedLongChainIndex(16, arena);
+  }
+}
@@ -0,0 +1,131 @@
+package looksy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ChainCompactorTest {
+
+  // big enough that the fork/join passes split into several tasks
+  private static LongChainIndex build(ChainsReference reference) {
+    LongChainIndex index = new LongChainIndex(16, new HeapLongArena(10));
+    Random r = new Random(LookupBenchmark.SEED);
+    reference.addInterleaved(r, 5000, 10, index);
+    reference.addRandom(r, 6000, 100000, index);
+    return index;
+  }
+
+  private static long[] arena(LongChainIndex index) {
+    LongArena arena = index.arena();
+    long[] longs = new long[(int) arena.used()];
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = arena.get(i);
+    }
+    return longs;
+  }
+
+  @Test
+  public void serialCompactionMatchesReference() {
+    ChainsReference reference = new ChainsReference();
+    LongChainIndex index = build(reference);
+    new ChainCompactor(index, 100).compact();
+    reference.assertMatches(index);
+    assertEquals(0.0, index.fragmentation(), 0.0);
+  }
+
+  @Test
+  public void compactionRestartsAfterAnAdd() {
+    ChainsReference reference = new ChainsReference();
+    LongChainIndex index = build(reference);
+    ChainCompactor compactor = new ChainCompactor(index, 100);
+    compactor.step();
+    reference.add(7, 42, index);
+    compactor.compact();
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void compactIndexIsLeftAlone() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    for (int key = 0; key < 100; key++) {
+      for (int i = 0; i < 10; i++) {
+        reference.add(key, i, index);
+      }
+    }
+    LongChainIndex.Chains chains = index.chains();
+    assertFalse(ChainCompactor.shouldCompact(index, ChainCompactor.DEFAULT_THRESHOLD));
+    assertNull(new ChainCompactor(index, 100).compactIfFragmented(
+        ChainCompactor.DEFAULT_THRESHOLD));
+    assertSame(chains, index.chains());
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void fragmentedIndexIsCompacted() {
+    ChainsReference reference = new ChainsReference();
+    LongChainIndex index = build(reference);
+    LongArena arena = index.arena();
+    assertTrue(ChainCompactor.shouldCompact(index, ChainCompactor.DEFAULT_THRESHOLD));
+    assertSame(arena, new ChainCompactor(index, 100).compactIfFragmented(
+        ChainCompactor.DEFAULT_THRESHOLD));
+    assertEquals(0.0, index.fragmentation(), 0.0);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void backgroundCompactionHonoursTheThreshold() throws Exception {
+    ChainsReference reference = new ChainsReference();
+    LongChainIndex index = build(reference);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      LongArena arena = index.arena();
+      assertSame(arena, new ChainCompactor(index, 100)
+          .compactInBackground(executor, ChainCompactor.DEFAULT_THRESHOLD).get());
+      // now compact, so a second pass leaves it alone
+      LongChainIndex.Chains chains = index.chains();
+      assertNull(new ChainCompactor(index, 100)
+          .compactInBackground(executor, ChainCompactor.DEFAULT_THRESHOLD).get());
+      assertSame(chains, index.chains());
+    } finally {
+      executor.shutdown();
+    }
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void parallelCompactionEqualsSerial() {
+    ChainsReference reference = new ChainsReference();
+    LongChainIndex serial = build(reference);
+    LongChainIndex parallel = build(new ChainsReference());
+    new ChainCompactor(serial, Integer.MAX_VALUE).compact();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelChainCompactor.compact(parallel, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    reference.assertMatches(parallel);
+    assertEquals(0.0, parallel.fragmentation(), 0.0);
+    assertArrayEquals(serial.chains().heads, parallel.chains().heads);
+    assertArrayEquals(arena(serial), arena(parallel));
+  }
+
+  @Test
+  public void parallelCompactionOfAnEmptyIndex() {
+    LongChainIndex index = new LongChainIndex();
+    ParallelChainCompactor.compact(index, ForkJoinPool.commonPool());
+    new ChainsReference().assertMatches(index);
+  }
+}
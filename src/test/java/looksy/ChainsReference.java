@@ -0,0 +1,85 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * What a chain index ought to hold: a HashMap of LinkedLists that gets the
+ * same adds, each value prepended so the lists read newest first like the
+ * chains do.
+ */
+class ChainsReference {
+  final Map<Integer, LinkedList<Long>> chains = new HashMap<>();
+  long size = 0;
+
+  void add(int key, long value) {
+    LinkedList<Long> chain = chains.get(key);
+    if (chain == null) {
+      chain = new LinkedList<>();
+      chains.put(key, chain);
+    }
+    chain.addFirst(value);
+    size++;
+  }
+
+  void add(int key, long value, MutableLongChains index) {
+    add(key, value);
+    index.add(key, value);
+  }
+
+  List<Long> get(int key) {
+    LinkedList<Long> chain = chains.get(key);
+    return chain == null ? new LinkedList<Long>() : chain;
+  }
+
+  // round-robin over the keys, as LookupTest builds its chains
+  void addInterleaved(Random r, int keyCount, int chainLength, MutableLongChains index) {
+    for (int i = 0; i < chainLength; i++) {
+      for (int key = 0; key < keyCount; key++) {
+        add(key, r.nextLong(), index);
+      }
+    }
+  }
+
+  // count values on random keys below keyBound, so some keys get none
+  void addRandom(Random r, int keyBound, int count, MutableLongChains index) {
+    for (int i = 0; i < count; i++) {
+      add(r.nextInt(keyBound), r.nextLong(), index);
+    }
+  }
+
+  // checks every key through forEach and through one reused cursor
+  void assertMatches(LongChains actual) {
+    assertEquals("size", size, actual.size());
+    for (int key : chains.keySet()) {
+      assertTrue("key " + key + " past keyCount " + actual.keyCount(), key < actual.keyCount());
+    }
+    LongChainCursor cursor = actual.cursor();
+    for (int key = 0; key < actual.keyCount(); key++) {
+      assertEquals("forEach of key " + key, get(key), forEachValues(actual, key));
+      assertEquals("cursor of key " + key, get(key), cursorValues(cursor, key));
+    }
+  }
+
+  static List<Long> forEachValues(LongChains chains, int key) {
+    List<Long> values = new ArrayList<>();
+    chains.forEach(key, values::add);
+    return values;
+  }
+
+  static List<Long> cursorValues(LongChainCursor cursor, int key) {
+    List<Long> values = new ArrayList<>();
+    cursor.reset(key);
+    while (cursor.hasNext()) {
+      values.add(cursor.nextLong());
+    }
+    return values;
+  }
+}
@@ -0,0 +1,149 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentLongChainIndexTest {
+  static final int THREADS = 4;
+  static final int KEYS = 1000;
+  static final int ADDS_PER_THREAD = 20000;
+
+  // thread t adds to keys t, t + THREADS, ..., so each chain's order is fixed
+  private static long[][] values() {
+    Random r = new Random(LookupBenchmark.SEED);
+    long[][] values = new long[THREADS][ADDS_PER_THREAD];
+    for (long[] thread : values) {
+      for (int i = 0; i < thread.length; i++) {
+        thread[i] = r.nextLong();
+      }
+    }
+    return values;
+  }
+
+  private static int key(int thread, int i) {
+    return (i * THREADS + thread) % KEYS;
+  }
+
+  private static ChainsReference reference(long[][] values) {
+    ChainsReference reference = new ChainsReference();
+    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+      for (int t = 0; t < THREADS; t++) {
+        reference.add(key(t, i), values[t][i]);
+      }
+    }
+    return reference;
+  }
+
+  private interface Adder {
+    void add(int key, long value);
+  }
+
+  private static void run(long[][] values, Adder[] adders) throws InterruptedException {
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        try {
+          for (int i = 0; i < ADDS_PER_THREAD; i++) {
+            adders[thread].add(key(thread, i), values[thread][i]);
+          }
+        } catch (Throwable e) {
+          failure.set(e);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  @Test
+  public void sharedAddsMatchReference() throws InterruptedException {
+    long[][] values = values();
+    ConcurrentLongChainIndex index = new ConcurrentLongChainIndex(KEYS,
+        new ConcurrentLongArena(8));
+    Adder[] adders = new Adder[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      adders[t] = index::add;
+    }
+    run(values, adders);
+    reference(values).assertMatches(index);
+  }
+
+  @Test
+  public void slabWritersMatchReference() throws InterruptedException {
+    long[][] values = values();
+    // 256-long pages and 6-long slabs, so slabs keep skipping page tails
+    ConcurrentLongChainIndex index = new ConcurrentLongChainIndex(KEYS,
+        new ConcurrentLongArena(8));
+    Adder[] adders = new Adder[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      adders[t] = index.writer(6)::add;
+    }
+    run(values, adders);
+    reference(values).assertMatches(index);
+  }
+
+  @Test
+  public void slabsNeverSpanPages() {
+    ConcurrentLongArena arena = new ConcurrentLongArena(4);
+    ConcurrentLongArena.Allocator allocator = arena.newAllocator(6);
+    for (int i = 0; i < 1000; i++) {
+      long address = allocator.allocate(2);
+      assertEquals(address >>> 4, (address + 1) >>> 4);
+    }
+  }
+
+  @Test
+  public void readersSeeSuffixesOfTheFinalChains() throws InterruptedException {
+    ConcurrentLongChainIndex index = new ConcurrentLongChainIndex(10);
+    ChainsReference reference = new ChainsReference();
+    Random r = new Random(LookupBenchmark.SEED);
+    long[] values = new long[100000];
+    int[] keys = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      keys[i] = r.nextInt(10);
+      values[i] = r.nextLong();
+      reference.add(keys[i], values[i]);
+    }
+    List<List<Long>> seen = new ArrayList<>();
+    Thread reader = new Thread(() -> {
+      ConcurrentLongChainIndex.Cursor cursor = index.cursor();
+      for (int i = 0; i < 2000; i++) {
+        seen.add(ChainsReference.cursorValues(cursor, i % 10));
+      }
+    });
+    reader.start();
+    for (int i = 0; i < values.length; i++) {
+      index.add(keys[i], values[i]);
+    }
+    reader.join();
+
+    reference.assertMatches(index);
+    for (int i = 0; i < seen.size(); i++) {
+      List<Long> chain = reference.get(i % 10);
+      List<Long> prefix = seen.get(i);
+      assertTrue(prefix.size() <= chain.size());
+      assertEquals(chain.subList(chain.size() - prefix.size(), chain.size()), prefix);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsKeysOutsideTheRange() {
+    new ConcurrentLongChainIndex(10).writer(64).add(10, 1);
+  }
+}
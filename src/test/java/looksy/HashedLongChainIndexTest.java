@@ -0,0 +1,166 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashedLongChainIndexTest {
+
+  // ChainsReference keyed by long
+  static class Reference {
+    final Map<Long, LinkedList<Long>> chains = new HashMap<>();
+    long size = 0;
+
+    void add(long key, long value, HashedLongChainIndex index) {
+      LinkedList<Long> chain = chains.get(key);
+      if (chain == null) {
+        chain = new LinkedList<>();
+        chains.put(key, chain);
+      }
+      chain.addFirst(value);
+      size++;
+      index.add(key, value);
+    }
+
+    void assertMatches(HashedLongChainIndex index) {
+      assertEquals("size", size, index.size());
+      assertEquals("keyCount", chains.size(), index.keyCount());
+      HashedLongChainIndex.Cursor cursor = index.cursor();
+      for (Map.Entry<Long, LinkedList<Long>> entry : chains.entrySet()) {
+        long key = entry.getKey();
+        assertTrue("key " + key, index.containsKey(key));
+        assertEquals("forEach of key " + key, entry.getValue(), forEachValues(index, key));
+        assertEquals("cursor of key " + key, entry.getValue(), cursorValues(cursor, key));
+      }
+    }
+
+    void assertMisses(HashedLongChainIndex index, long key) {
+      if (!chains.containsKey(key)) {
+        assertFalse("key " + key, index.containsKey(key));
+        assertEquals(new ArrayList<Long>(), forEachValues(index, key));
+        assertFalse(index.cursor().reset(key).hasNext());
+      }
+    }
+  }
+
+  static List<Long> forEachValues(HashedLongChainIndex index, long key) {
+    List<Long> values = new ArrayList<>();
+    index.forEach(key, values::add);
+    return values;
+  }
+
+  static List<Long> cursorValues(HashedLongChainIndex.Cursor cursor, long key) {
+    List<Long> values = new ArrayList<>();
+    cursor.reset(key);
+    while (cursor.hasNext()) {
+      values.add(cursor.nextLong());
+    }
+    return values;
+  }
+
+  @Test
+  public void sparseKeysAreHashed() {
+    HashedLongChainIndex index = new HashedLongChainIndex();
+    Reference reference = new Reference();
+    Random r = new Random(LookupBenchmark.SEED);
+    long[] keys = new long[5000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = r.nextLong();
+    }
+    for (int i = 0; i < 50000; i++) {
+      reference.add(keys[r.nextInt(keys.length)], r.nextLong(), index);
+    }
+    assertFalse(index.isDirect());
+    reference.assertMatches(index);
+    for (int i = 0; i < 10000; i++) {
+      reference.assertMisses(index, r.nextLong());
+    }
+  }
+
+  @Test
+  public void denseKeysAreIndexedDirectly() {
+    HashedLongChainIndex index = new HashedLongChainIndex();
+    Reference reference = new Reference();
+    Random r = new Random(LookupBenchmark.SEED);
+    long base = 1000000000000L;
+    for (int i = 0; i < 50000; i++) {
+      reference.add(base + r.nextInt(5000), r.nextLong(), index);
+    }
+    assertTrue(index.isDirect());
+    reference.assertMatches(index);
+    for (long key = base - 100; key < base + 5100; key++) {
+      reference.assertMisses(index, key);
+    }
+    reference.assertMisses(index, 0);
+  }
+
+  @Test
+  public void forcedHashingMatchesReference() {
+    HashedLongChainIndex index = new HashedLongChainIndex(16, new HeapLongArena(),
+        LongLongHashMap.DEFAULT_MAX_LOAD, 0);
+    Reference reference = new Reference();
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 50000; i++) {
+      reference.add(r.nextInt(5000), r.nextLong(), index);
+    }
+    assertFalse(index.isDirect());
+    reference.assertMatches(index);
+    reference.assertMisses(index, 5000);
+    reference.assertMisses(index, -1);
+  }
+
+  @Test
+  public void switchesBetweenDirectAndHashed() {
+    HashedLongChainIndex index = new HashedLongChainIndex();
+    Reference reference = new Reference();
+    for (long key = 100; key < 200; key++) {
+      reference.add(key, key * 3, index);
+    }
+    assertTrue(index.isDirect());
+    // one far-off key stretches the range too far
+    reference.add(200000, 7, index);
+    assertFalse(index.isDirect());
+    reference.assertMatches(index);
+    // until the keys in between fill it in again
+    for (long key = 200; key < 200000; key += 3) {
+      reference.add(key, key, index);
+    }
+    assertTrue(index.isDirect());
+    reference.assertMatches(index);
+    reference.assertMisses(index, 201);
+  }
+
+  @Test
+  public void extremeKeys() {
+    HashedLongChainIndex index = new HashedLongChainIndex();
+    Reference reference = new Reference();
+    reference.add(0, 1, index);
+    reference.add(Long.MAX_VALUE, 2, index);
+    reference.add(Long.MIN_VALUE, 3, index);
+    reference.add(-1, 4, index);
+    reference.add(0, 5, index);
+    reference.assertMatches(index);
+    reference.assertMisses(index, 1);
+    reference.assertMisses(index, Long.MAX_VALUE - 1);
+  }
+
+  @Test
+  public void denseRangeAtTheTopOfLong() {
+    HashedLongChainIndex index = new HashedLongChainIndex();
+    Reference reference = new Reference();
+    for (long key = Long.MAX_VALUE; key > Long.MAX_VALUE - 3000; key--) {
+      reference.add(key, key, index);
+    }
+    assertTrue(index.isDirect());
+    reference.assertMatches(index);
+  }
+}
@@ -0,0 +1,134 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LatencyHistogramTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // spread over six decades, like probe latencies with the odd GC pause
+  private static long[] latencies(Random r, int count) {
+    long[] values = new long[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = (long) Math.pow(10, 1 + 6 * r.nextDouble() * r.nextDouble());
+    }
+    return values;
+  }
+
+  @Test
+  public void bucketsCoverEveryValueWithinOnePercent() {
+    List<Long> values = new ArrayList<>(Arrays.asList(0L, 1L, 255L, 256L, 257L, Long.MAX_VALUE));
+    for (int bit = 8; bit < 63; bit++) {
+      values.add((1L << bit) - 1);
+      values.add(1L << bit);
+      values.add((1L << bit) + 1);
+    }
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 10000; i++) {
+      values.add(r.nextLong() >>> (1 + r.nextInt(63)));
+    }
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertTrue("bucket of " + value, bucket >= 0 && bucket < LatencyHistogram.BUCKETS);
+      long highest = LatencyHistogram.highestValue(bucket);
+      assertTrue(value + " above its bucket's " + highest, value <= highest);
+      assertTrue(value + " below its bucket", bucket == 0
+          || LatencyHistogram.highestValue(bucket - 1) < value);
+      assertTrue(value + " rounds up to " + highest, highest - value <= value / 100);
+    }
+  }
+
+  @Test
+  public void percentilesMatchExactWithinOnePercent() {
+    long[] values = latencies(new Random(LookupBenchmark.SEED), 100000);
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value : values) {
+      histogram.record(value);
+    }
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+
+    assertEquals(values.length, histogram.count());
+    assertEquals(sorted[sorted.length - 1], histogram.max());
+    assertEquals(sorted[sorted.length - 1], histogram.percentile(1));
+    for (double q : new double[] {0, 0.1, 0.5, 0.9, 0.99, 0.999, 0.9999}) {
+      long exact = sorted[(int) Math.max(Math.ceil(q * sorted.length), 1) - 1];
+      long estimate = histogram.percentile(q);
+      assertTrue("p" + q + " " + estimate + " vs " + exact,
+          estimate >= exact && estimate <= exact + exact / 100);
+    }
+    double mean = Arrays.stream(values).average().getAsDouble();
+    assertEquals(mean, histogram.mean(), mean / 100);
+  }
+
+  @Test
+  public void concurrentRecordingLosesNothing() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[4];
+    long max = 0;
+    for (int t = 0; t < threads.length; t++) {
+      long[] thread = latencies(new Random(LookupBenchmark.SEED + t), 100000);
+      max = Math.max(max, Arrays.stream(thread).max().getAsLong());
+      threads[t] = new Thread(() -> {
+        for (long value : thread) {
+          histogram.record(value);
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(400000, histogram.count());
+    assertEquals(max, histogram.max());
+  }
+
+  @Test
+  public void emptyAndReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.percentile(0.99));
+    histogram.record(12345);
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.max());
+    assertEquals(0.0, histogram.mean(), 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeLatencies() {
+    new LatencyHistogram().record(-1);
+  }
+
+  @Test
+  public void exportEndsAtTheTotalCount() throws IOException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    SplittableRandom random = new SplittableRandom(LookupBenchmark.SEED);
+    for (int i = 0; i < 10000; i++) {
+      histogram.record(100 + random.nextInt(100000));
+    }
+    Path file = folder.newFile("latency.hgrm").toPath();
+    histogram.export(file);
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertTrue(lines.get(0).trim().startsWith("Value"));
+    String last = lines.get(lines.size() - 4).trim();
+    assertTrue(last, last.endsWith(" 10000"));
+    assertTrue(lines.get(lines.size() - 2).contains("Total count    =        10000"));
+  }
+}
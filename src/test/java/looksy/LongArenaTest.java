@@ -0,0 +1,121 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongArenaTest {
+
+  @Test
+  public void growingKeepsEarlierPages() {
+    // 16-long pages, so a few thousand longs take hundreds of pages
+    LongArena arena = new HeapLongArena(4);
+    long[] addresses = new long[5000];
+    for (int i = 0; i < addresses.length; i++) {
+      addresses[i] = arena.allocate(1);
+      arena.set(addresses[i], i * 31L);
+    }
+    assertTrue(arena.capacity() >= arena.used());
+    for (int i = 0; i < addresses.length; i++) {
+      assertEquals(i * 31L, arena.get(addresses[i]));
+    }
+  }
+
+  @Test
+  public void allocationsNeverSpanPages() {
+    LongArena arena = new HeapLongArena(3);
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 1000; i++) {
+      int size = 1 + r.nextInt(8);
+      long address = arena.allocate(size);
+      assertEquals(address >>> 3, (address + size - 1) >>> 3);
+    }
+  }
+
+  @Test
+  public void newPagesReadAsZero() {
+    LongArena arena = new HeapLongArena(4);
+    long address = arena.allocate(16);
+    for (int i = 0; i < 16; i++) {
+      assertEquals(0, arena.get(address + i));
+    }
+  }
+
+  @Test
+  public void reserveAddsEveryPageUpFront() {
+    LongArena arena = new HeapLongArena(4);
+    arena.allocate(3);
+    long address = arena.reserve(100);
+    assertEquals(3, address);
+    assertEquals(103, arena.used());
+    assertTrue(arena.capacity() >= 103);
+    arena.set(102, 7);
+    assertEquals(7, arena.get(102));
+  }
+
+  @Test
+  public void smallPagesMatchReference() {
+    LongChainIndex index = new LongChainIndex(16, new HeapLongArena(2));
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 300, 20000, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void alignedDirectPagesStartOnHugePages() {
+    // 2 MB pages, the smallest that cover whole huge pages
+    DirectLongArena arena = new DirectLongArena(18, true);
+    assertTrue(arena.isHugePageAligned());
+    long[] addresses = new long[4];
+    for (int i = 0; i < addresses.length; i++) {
+      addresses[i] = arena.allocate(1 << 18);
+      arena.set(addresses[i], i + 1);
+      arena.set(addresses[i] + (1 << 18) - 1, -(i + 1));
+    }
+    assertEquals(4, arena.pageCount);
+    for (int page = 0; page < arena.pageCount; page++) {
+      assertEquals(0, DirectBuffers.alignmentOffset(arena.pages[page],
+          DirectLongArena.HUGE_PAGE_BYTES));
+      assertEquals(8 << 18, arena.pages[page].capacity());
+    }
+    for (int i = 0; i < addresses.length; i++) {
+      assertEquals(i + 1, arena.get(addresses[i]));
+      assertEquals(-(i + 1), arena.get(addresses[i] + (1 << 18) - 1));
+    }
+    arena.free();
+  }
+
+  @Test
+  public void alignedDirectArenaMatchesReference() {
+    DirectLongArena arena = new DirectLongArena(18, true);
+    LongChainIndex index = new LongChainIndex(16, arena);
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 1000, 300000, index);
+    assertTrue(arena.pageCount > 1);
+    reference.assertMatches(index);
+    index.free();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsAlignedPagesSmallerThanAHugePage() {
+    new DirectLongArena(17, true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsAllocationsLargerThanAPage() {
+    new HeapLongArena(4).allocate(17);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyAllocations() {
+    new HeapLongArena(4).allocate(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsPageShiftOutOfRange() {
+    new HeapLongArena(31);
+  }
+}
@@ -0,0 +1,115 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongChainIndexTest {
+
+  @Test
+  public void emptyIndexHasNoChains() {
+    LongChainIndex index = new LongChainIndex();
+    assertEquals(0, index.keyCount());
+    assertEquals(0, index.size());
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 0));
+    assertEquals(Collections.emptyList(), ChainsReference.cursorValues(index.cursor(), 5));
+  }
+
+  @Test
+  public void interleavedMatchesReference() {
+    LongChainIndex index = new LongChainIndex(500);
+    ChainsReference reference = new ChainsReference();
+    reference.addInterleaved(new Random(LookupBenchmark.SEED), 500, 50, index);
+    reference.assertMatches(index);
+    assertEquals(500, index.keyCount());
+  }
+
+  @Test
+  public void randomKeysGrowTheHeads() {
+    // starts with room for one key, so the heads grow many times over
+    LongChainIndex index = new LongChainIndex(1);
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 10000, 50000, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void missingKeysAreEmpty() {
+    LongChainIndex index = new LongChainIndex();
+    index.add(3, 42);
+    assertEquals(4, index.keyCount());
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 2));
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 1000));
+    assertEquals(Collections.emptyList(), ChainsReference.cursorValues(index.cursor(), -1));
+  }
+
+  @Test
+  public void zeroAndNegativeValuesAreKept() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    reference.add(0, 0, index);
+    reference.add(0, -1, index);
+    reference.add(0, Long.MIN_VALUE, index);
+    reference.add(1, Long.MAX_VALUE, index);
+    reference.assertMatches(index);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeKeys() {
+    new LongChainIndex().add(-1, 1);
+  }
+
+  @Test
+  public void batchesMatchReference() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    Random r = new Random(LookupBenchmark.SEED);
+    reference.addRandom(r, 1000, 20000, index);
+    // some keys past keyCount, and repeats within a batch
+    int[] keys = new int[1000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = r.nextInt(1100);
+    }
+    keys[1] = keys[0];
+    LongChainIndex.BatchCursor batch = index.batchCursor(16);
+    for (int from = 0; from < keys.length; from += 16) {
+      int count = Math.min(16, keys.length - from);
+      List<List<Long>> values = new ArrayList<>();
+      for (int i = 0; i < keys.length; i++) {
+        values.add(new ArrayList<Long>());
+      }
+      batch.forEach(keys, from, count, (keyIndex, value) -> values.get(keyIndex).add(value));
+      for (int i = 0; i < keys.length; i++) {
+        boolean inBatch = i >= from && i < from + count;
+        assertEquals("key index " + i, inBatch ? reference.get(keys[i]) : Collections.emptyList(),
+            values.get(i));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsBatchesLargerThanMaxBatch() {
+    new LongChainIndex().batchCursor(4).forEach(new int[8], 0, 8, (keyIndex, value) -> { });
+  }
+
+  @Test
+  public void roundRobinIsFragmentedAndOneKeyAtATimeIsNot() {
+    LongChainIndex interleaved = new LongChainIndex();
+    new ChainsReference().addInterleaved(new Random(LookupBenchmark.SEED), 100, 10, interleaved);
+    assertTrue(interleaved.fragmentation() > 0.8);
+
+    LongChainIndex sequential = new LongChainIndex();
+    for (int key = 0; key < 100; key++) {
+      for (int i = 0; i < 10; i++) {
+        sequential.add(key, i);
+      }
+    }
+    assertEquals(0.0, sequential.fragmentation(), 0.0);
+  }
+}
@@ -0,0 +1,145 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedLongChainIndexTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file() throws IOException {
+    return folder.newFile("index").toPath();
+  }
+
+  private static MappedLongChainIndex roundTrip(LongChainIndex index, Path path)
+      throws IOException {
+    MappedLongChainIndex.write(index, path);
+    return MappedLongChainIndex.open(path);
+  }
+
+  @Test
+  public void roundTripMatchesReference() throws IOException {
+    LongChainIndex index = new LongChainIndex(5000);
+    ChainsReference reference = new ChainsReference();
+    reference.addInterleaved(new Random(LookupBenchmark.SEED), 5000, 20, index);
+    try (MappedLongChainIndex mapped = roundTrip(index, file())) {
+      assertEquals(index.keyCount(), mapped.keyCount());
+      reference.assertMatches(mapped);
+      mapped.load();
+      reference.assertMatches(mapped);
+    }
+  }
+
+  @Test
+  public void roundTripOverManyPages() throws IOException {
+    // 1024-long pages, with a partial last one
+    LongChainIndex index = new LongChainIndex(16, new HeapLongArena(10));
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 1000, 12345, index);
+    try (MappedLongChainIndex mapped = roundTrip(index, file())) {
+      reference.assertMatches(mapped);
+    }
+  }
+
+  @Test
+  public void roundTripFromDirectArena() throws IOException {
+    LongChainIndex index = new LongChainIndex(16, new DirectLongArena(12));
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 100, 10000, index);
+    try (MappedLongChainIndex mapped = roundTrip(index, file())) {
+      reference.assertMatches(mapped);
+    }
+    index.free();
+  }
+
+  @Test
+  public void emptyIndexRoundTrips() throws IOException {
+    try (MappedLongChainIndex mapped = roundTrip(new LongChainIndex(), file())) {
+      assertEquals(0, mapped.size());
+      new ChainsReference().assertMatches(mapped);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void writeRejectsUnmappablePageShift() throws IOException {
+    // empty, so no 2 GB page is ever allocated
+    LongChainIndex index = new LongChainIndex(16,
+        new HeapLongArena(DirectLongArena.MAX_PAGE_SHIFT + 1));
+    MappedLongChainIndex.write(index, file());
+  }
+
+  @Test
+  public void openRejectsTruncatedFile() throws IOException {
+    LongChainIndex index = new LongChainIndex();
+    new ChainsReference().addRandom(new Random(LookupBenchmark.SEED), 100, 10000, index);
+    Path path = file();
+    MappedLongChainIndex.write(index, path);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 8);
+    }
+    assertOpenFails(path, "truncated");
+  }
+
+  @Test
+  public void openRejectsShortFile() throws IOException {
+    Path path = file();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(10));
+    }
+    assertOpenFails(path, "too short");
+  }
+
+  @Test
+  public void openRejectsBadMagic() throws IOException {
+    Path path = file();
+    MappedLongChainIndex.write(new LongChainIndex(), path);
+    patchInt(path, 0, 0x12345678);
+    assertOpenFails(path, "not an index file");
+  }
+
+  @Test
+  public void openRejectsBadPageShift() throws IOException {
+    Path path = file();
+    MappedLongChainIndex.write(new LongChainIndex(), path);
+    patchInt(path, 12, 40);
+    assertOpenFails(path, "page shift");
+  }
+
+  @Test
+  public void openRejectsBadKeyCount() throws IOException {
+    Path path = file();
+    MappedLongChainIndex.write(new LongChainIndex(), path);
+    patchInt(path, 16, -1);
+    assertOpenFails(path, "key count");
+  }
+
+  private static void patchInt(Path path, long position, int value) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(value).flip();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(buffer, position);
+    }
+  }
+
+  private static void assertOpenFails(Path path, String message) {
+    try {
+      MappedLongChainIndex.open(path).close();
+      fail("Opened a bad file");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+  }
+}
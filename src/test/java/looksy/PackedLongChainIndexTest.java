@@ -0,0 +1,92 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PackedLongChainIndexTest {
+
+  // frozen and packed copies both match the reference, value by value too
+  private static void assertPacks(LongChainIndex index, ChainsReference reference) {
+    FrozenLongChainIndex frozen = index.freeze();
+    PackedLongChainIndex packed = frozen.pack();
+    reference.assertMatches(frozen);
+    reference.assertMatches(packed);
+    PackedLongChainIndex.BlockCursor blockCursor = packed.blockCursor();
+    for (int key = 0; key < packed.keyCount(); key++) {
+      assertEquals("block cursor of key " + key, reference.get(key),
+          ChainsReference.cursorValues(blockCursor, key));
+      assertEquals(frozen.start(key), packed.start(key));
+      assertEquals(frozen.end(key), packed.end(key));
+    }
+    for (int i = 0; i < frozen.size(); i++) {
+      assertEquals("value " + i, frozen.value(i), packed.value(i));
+    }
+  }
+
+  @Test
+  public void fullRangeValues() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 1000, 12345, index);
+    assertPacks(index, reference);
+  }
+
+  @Test
+  public void boundedValuesPackSmaller() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int i = 0; i < 20000; i++) {
+      reference.add(r.nextInt(1000), 1000000 + r.nextInt(1 << 20), index);
+    }
+    assertPacks(index, reference);
+    assertTrue(index.freeze().pack().bytesPerValue() < index.freeze().bytesPerValue() / 2);
+  }
+
+  @Test
+  public void mixedWidthsAndEmptyChains() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    Random r = new Random(LookupBenchmark.SEED);
+    for (int key = 0; key < 300; key += 1 + r.nextInt(3)) {
+      int length = r.nextInt(400);
+      for (int i = 0; i < length; i++) {
+        long value;
+        switch (key % 4) {
+          case 0:
+            value = 42;
+            break;
+          case 1:
+            value = r.nextInt(16);
+            break;
+          case 2:
+            value = -r.nextInt(1 << 30);
+            break;
+          default:
+            value = r.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        reference.add(key, value, index);
+      }
+    }
+    assertPacks(index, reference);
+  }
+
+  @Test
+  public void constantValuesTakeNoBits() {
+    LongChainIndex index = new LongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    for (int i = 0; i < 1000; i++) {
+      reference.add(i % 7, -5, index);
+    }
+    assertPacks(index, reference);
+  }
+
+  @Test
+  public void emptyIndex() {
+    assertPacks(new LongChainIndex(), new ChainsReference());
+  }
+}
@@ -0,0 +1,64 @@
+package looksy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SplitLongChainIndexTest {
+
+  @Test
+  public void interleavedMatchesReference() {
+    SplitLongChainIndex index = new SplitLongChainIndex(500);
+    ChainsReference reference = new ChainsReference();
+    reference.addInterleaved(new Random(LookupBenchmark.SEED), 500, 50, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void randomKeysGrowTheHeads() {
+    SplitLongChainIndex index = new SplitLongChainIndex(1);
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 10000, 50000, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void entriesAcrossManySmallPages() {
+    // 8-entry pages, so entry numbers straddle page boundaries everywhere
+    SplitLongChainIndex index = new SplitLongChainIndex(16, 3);
+    ChainsReference reference = new ChainsReference();
+    reference.addRandom(new Random(LookupBenchmark.SEED), 100, 5000, index);
+    reference.assertMatches(index);
+  }
+
+  @Test
+  public void firstAndOnlyEntries() {
+    // entry 0 is link 1; a lone entry's next link is 0, the end of the chain
+    SplitLongChainIndex index = new SplitLongChainIndex();
+    ChainsReference reference = new ChainsReference();
+    reference.add(0, 11, index);
+    reference.add(5, 0, index);
+    reference.add(0, -1, index);
+    reference.add(40, Long.MIN_VALUE, index);
+    reference.assertMatches(index);
+    assertEquals(41, index.keyCount());
+  }
+
+  @Test
+  public void emptyKeys() {
+    SplitLongChainIndex index = new SplitLongChainIndex();
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 0));
+    index.add(3, 1);
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 2));
+    assertEquals(Collections.emptyList(), ChainsReference.forEachValues(index, 1000));
+    assertEquals(Collections.emptyList(), ChainsReference.cursorValues(index.cursor(), -1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeKeys() {
+    new SplitLongChainIndex().add(-1, 1);
+  }
+}